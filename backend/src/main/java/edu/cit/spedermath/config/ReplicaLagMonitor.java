@@ -0,0 +1,95 @@
+package edu.cit.spedermath.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the replica's replay lag in the background. The replica counts as usable only while the last
+ * probe succeeded and reported a lag within {@code maxLag}; it starts out unusable until the first probe.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Seconds the replica is behind. Zero when it has replayed everything it received, so an idle primary
+     * (no new WAL, old pg_last_xact_replay_timestamp) does not look like lag.
+     */
+    public static final String POSTGRES_LAG_QUERY = """
+        SELECT CASE
+            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+        END
+    """;
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+        Gauge.builder("spedermath.datasource.replica.lag", this, m -> m.lagSeconds)
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("spedermath.datasource.replica.usable", this, m -> m.usable ? 1 : 0).register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    /** One probe; also callable directly (tests, or right after a failover). */
+    public void check() {
+        try (Connection c = replica.getConnection();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(lagQuery)) {
+            lagSeconds = rs.next() ? rs.getDouble(1) : Double.NaN;
+            boolean nowUsable = lagSeconds <= maxLagSeconds;
+            if (nowUsable != usable) {
+                log.info("Read replica {} (lag {}s, limit {}s)", nowUsable ? "in use" : "bypassed", lagSeconds, maxLagSeconds);
+            }
+            usable = nowUsable;
+        } catch (Exception e) {
+            if (usable) log.warn("Read replica probe failed; sending reads to the primary", e);
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package edu.cit.spedermath.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a {@code @Transactional(readOnly = true)} method (or every method of a class) into the read replica.
+ * Only for reads that tolerate replica lag, such as dashboards and attempt history; reads that must see
+ * the caller's own recent writes (progress, login, lesson-stat seeds) stay on the primary by default.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
@@ -0,0 +1,22 @@
+package edu.cit.spedermath.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/** Marks the current thread as replica-eligible for the duration of a {@link ReplicaRead} method. */
+@Aspect
+@Component
+public class ReplicaReadAspect {
+
+    @Around("@annotation(edu.cit.spedermath.config.ReplicaRead) || @within(edu.cit.spedermath.config.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint call) throws Throwable {
+        boolean previous = ReplicaRoutingDataSource.enterReplicaRead();
+        try {
+            return call.proceed();
+        } finally {
+            ReplicaRoutingDataSource.exitReplicaRead(previous);
+        }
+    }
+}
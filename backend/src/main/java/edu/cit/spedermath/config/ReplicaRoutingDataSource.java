@@ -0,0 +1,54 @@
+package edu.cit.spedermath.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work that opted in with {@link ReplicaRead}
+ * to the replica while it is within the lag limit, and everything else (writes, other read-only work,
+ * non-transactional access, schema setup) to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy: transaction managers fetch the connection before the
+ * read-only flag is published, the proxy defers that until the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentTarget();
+    }
+
+    public Target currentTarget() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        boolean optedIn = Boolean.TRUE.equals(REPLICA_READ.get());
+        return readOnly && optedIn && lagMonitor.isReplicaUsable() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    /** Marks the current thread replica-eligible; returns the previous state for {@link #exitReplicaRead}. */
+    static boolean enterReplicaRead() {
+        boolean previous = Boolean.TRUE.equals(REPLICA_READ.get());
+        REPLICA_READ.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void exitReplicaRead(boolean previous) {
+        if (previous) REPLICA_READ.set(Boolean.TRUE);
+        else REPLICA_READ.remove();
+    }
+}
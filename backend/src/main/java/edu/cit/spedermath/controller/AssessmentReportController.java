@@ -0,0 +1,100 @@
+package edu.cit.spedermath.controller;
+
+import edu.cit.spedermath.dto.AssessmentReportDTO;
+import edu.cit.spedermath.repository.StudentRepository;
+import edu.cit.spedermath.security.JwtPrincipal;
+import edu.cit.spedermath.service.AssessmentReportService;
+import edu.cit.spedermath.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/teachers/me")
+public class AssessmentReportController {
+
+    private static final Logger log = LoggerFactory.getLogger(AssessmentReportController.class);
+
+    private final AssessmentReportService reportService;
+    private final StudentRepository studentRepository;
+    private final JwtUtil jwtUtil;
+    private final Duration requestTimeout;
+
+    public AssessmentReportController(AssessmentReportService reportService,
+                                      StudentRepository studentRepository,
+                                      JwtUtil jwtUtil,
+                                      @Value("${app.summarizer.request-timeout:PT90S}") Duration requestTimeout) {
+        this.reportService = reportService;
+        this.studentRepository = studentRepository;
+        this.jwtUtil = jwtUtil;
+        this.requestTimeout = requestTimeout;
+    }
+
+    // --- Class report for the signed-in teacher ---
+    @GetMapping("/assessment-report")
+    public DeferredResult<ResponseEntity<AssessmentReportDTO>> getClassReport(HttpServletRequest request) {
+        Long teacherId = teacherId(request);
+        if (teacherId == null) return immediate(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        return deferred(() -> reportService.classReport(teacherId));
+    }
+
+    // --- Report for one of the teacher's students ---
+    @GetMapping("/students/{studentId}/assessment-report")
+    public DeferredResult<ResponseEntity<AssessmentReportDTO>> getStudentReport(@PathVariable Long studentId,
+                                                                                HttpServletRequest request) {
+        Long teacherId = teacherId(request);
+        if (teacherId == null) return immediate(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        boolean ownStudent = studentRepository.findTeacherIdByStudentId(studentId)
+                .map(owner -> Objects.equals(owner, teacherId))
+                .orElse(false);
+        if (!ownStudent) return immediate(ResponseEntity.notFound().build());
+        return deferred(() -> reportService.studentReport(studentId));
+    }
+
+    private Long teacherId(HttpServletRequest request) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(request);
+        return principal != null ? principal.teacherId() : null;
+    }
+
+    private DeferredResult<ResponseEntity<AssessmentReportDTO>> deferred(Supplier<CompletableFuture<AssessmentReportDTO>> report) {
+        DeferredResult<ResponseEntity<AssessmentReportDTO>> result = new DeferredResult<>(requestTimeout.toMillis());
+        CompletableFuture<AssessmentReportDTO> future;
+        try {
+            future = report.get();
+        } catch (RejectedExecutionException e) {
+            result.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "5").build());
+            return result;
+        }
+        result.onTimeout(() -> {
+            future.cancel(true); // also cancels the upstream call
+            result.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+        });
+        future.whenComplete((dto, e) -> {
+            if (e == null) {
+                result.setResult(ResponseEntity.ok(dto));
+            } else if (!future.isCancelled()) {
+                log.warn("Assessment report generation failed", e);
+                result.setResult(ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+            }
+        });
+        return result;
+    }
+
+    private static DeferredResult<ResponseEntity<AssessmentReportDTO>> immediate(ResponseEntity<AssessmentReportDTO> response) {
+        DeferredResult<ResponseEntity<AssessmentReportDTO>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+}
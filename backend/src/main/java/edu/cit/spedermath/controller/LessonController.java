@@ -1,7 +1,9 @@
 package edu.cit.spedermath.controller;
 
 import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.service.LessonCatalog;
 import edu.cit.spedermath.service.LessonService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,10 +19,14 @@ public class LessonController {
         this.lessonService = lessonService;
     }
 
-    // GET all lessons
+    // GET all lessons (from the in-memory catalog; Spring answers a matching If-None-Match with 304)
     @GetMapping
     public ResponseEntity<List<Lesson>> getAllLessons() {
-        return ResponseEntity.ok(lessonService.getAllLessons());
+        LessonCatalog.Snapshot catalog = lessonService.getCatalog();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(catalog.etag())
+                .body(catalog.ordered());
     }
 
     // GET lesson by id
@@ -1,8 +1,11 @@
 package edu.cit.spedermath.controller;
 
 import edu.cit.spedermath.dto.LessonStatsDTO;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.security.JwtPrincipal;
 import edu.cit.spedermath.service.LessonStatsService;
 import edu.cit.spedermath.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,23 +21,21 @@ public class LessonStatsController {
 
     @GetMapping
     public List<LessonStatsDTO> getLessonStatsForCurrentTeacher(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @RequestParam(value = "type", required = false) String type // 👈 new
     ) {
-        String token = authHeader.substring(7); 
-        Long teacherId = jwtUtil.extractTeacherId(token);
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(request);
+        Long teacherId = principal != null ? principal.teacherId() : null;
 
-        List<LessonStatsDTO> stats = lessonStatsService.getLessonStatsForTeacher(teacherId);
-
-        if (type == null || type.isBlank()) return stats;
+        return lessonStatsService.getLessonStatsForTeacher(teacherId, parseType(type));
+    }
 
+    private static LessonType parseType(String type) {
+        if (type == null || type.isBlank()) return null;
         try {
-            return stats.stream()
-                    .filter(dto -> dto.getLessonType() != null 
-                            && dto.getLessonType().toString().equalsIgnoreCase(type))
-                    .toList();
-        } catch (Exception e) {
-            return stats; // fallback if invalid type
+            return LessonType.valueOf(type.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null; // fallback if invalid type
         }
     }
 }
@@ -1,21 +1,34 @@
 package edu.cit.spedermath.controller;
 
 import edu.cit.spedermath.dto.AttemptHistoryDTO;
+import edu.cit.spedermath.dto.CursorPage;
 import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.repository.StudentRepository;
+import edu.cit.spedermath.security.JwtPrincipal;
 import edu.cit.spedermath.service.StudentAttemptService;
+import edu.cit.spedermath.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/attempts")
 public class StudentAttemptController {
 
     private final StudentAttemptService service;
+    private final StudentRepository studentRepository;
+    private final JwtUtil jwtUtil;
 
-    public StudentAttemptController(StudentAttemptService service) {
+    public StudentAttemptController(StudentAttemptService service,
+                                    StudentRepository studentRepository,
+                                    JwtUtil jwtUtil) {
         this.service = service;
+        this.studentRepository = studentRepository;
+        this.jwtUtil = jwtUtil;
     }
 
     @GetMapping("/{studentId}/recent")
@@ -27,4 +40,32 @@ public class StudentAttemptController {
         List<AttemptHistoryDTO> dto = service.getRecentDTOByType(studentId, type, limit);
         return ResponseEntity.ok(dto);
     }
+
+    // Keyset-paged history (newest first); follow nextCursor via ?after= until it is null
+    @GetMapping("/{studentId}/history")
+    public ResponseEntity<CursorPage<AttemptHistoryDTO>> getHistory(
+            @PathVariable Long studentId,
+            @RequestParam(name = "lessonId", required = false) Long lessonId,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            HttpServletRequest request
+    ) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(request);
+        if (principal == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (!canRead(principal, studentId)) return ResponseEntity.notFound().build();
+        try {
+            return ResponseEntity.ok(service.getHistoryPage(studentId, lessonId, after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // tampered or stale cursor
+        }
+    }
+
+    /** The student themself, or the teacher the student belongs to. */
+    private boolean canRead(JwtPrincipal principal, Long studentId) {
+        if (Objects.equals(principal.studentId(), studentId)) return true;
+        Long teacherId = principal.teacherId();
+        return teacherId != null && studentRepository.findTeacherIdByStudentId(studentId)
+                .map(owner -> Objects.equals(owner, teacherId))
+                .orElse(false);
+    }
 }
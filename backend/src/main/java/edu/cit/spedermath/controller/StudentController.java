@@ -1,29 +1,41 @@
 package edu.cit.spedermath.controller;
 
+import edu.cit.spedermath.dto.PageResponse;
+import edu.cit.spedermath.dto.StudentSummaryDTO;
 import edu.cit.spedermath.model.Student;
 import edu.cit.spedermath.model.Teacher;
 import edu.cit.spedermath.service.StudentService;
 import edu.cit.spedermath.repository.TeacherRepository;
+import edu.cit.spedermath.security.JwtPrincipal;
+import edu.cit.spedermath.util.ImageUtil;
 import edu.cit.spedermath.util.JwtUtil;
 import edu.cit.spedermath.service.StudentLoginTokenService;
+import edu.cit.spedermath.service.ThumbnailService;
+import edu.cit.spedermath.util.HttpCacheUtil;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.net.URLEncoder;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/students")
@@ -41,19 +53,17 @@ public class StudentController {
     @Autowired
     private TeacherRepository teacherRepository;
 
-    @Value("${app.publicApiBaseUrl}")
-    private String publicApiBaseUrl;
+    @Autowired
+    private ThumbnailService thumbnailService;
 
-    // --- helper: extract bearer token robustly ---
-    private String extractBearerToken(HttpServletRequest request, String authHeader) {
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        }
-        String h = request.getHeader("Authorization");
-        if (h != null && h.startsWith("Bearer ")) {
-            return h.substring(7);
-        }
-        return null;
+    private static final DateTimeFormatter CREATED_AT_FORMAT = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+
+    private static final Set<String> ROSTER_SORT_FIELDS = Set.of("fname", "lname", "username", "birthdate", "createdAt", "studentID");
+    private static final int MAX_ROSTER_PAGE_SIZE = 100;
+
+    // --- helper: principal parsed once per request (by the JWT filter) ---
+    private JwtPrincipal principal(HttpServletRequest request) {
+        return jwtUtil.resolvePrincipal(request);
     }
 
     @PostMapping("/create")
@@ -62,13 +72,12 @@ public class StudentController {
                                                  @RequestParam String username,
                                                  @RequestParam String birthdate,
                                                  @RequestParam(required = false) MultipartFile profilePicture,
-                                                 @RequestHeader(value = "Authorization", required = false) String authHeader,
                                                  HttpServletRequest request) {
         try {
-            String token = extractBearerToken(request, authHeader);
-            if (token == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            JwtPrincipal principal = principal(request);
+            if (principal == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 
-            Long teacherId = jwtUtil.extractTeacherId(token);
+            Long teacherId = principal.teacherId();
             LocalDate parsedBirthdate = LocalDate.parse(birthdate);
 
             Student student = studentService.createStudent(
@@ -98,13 +107,12 @@ public class StudentController {
                                                  @RequestParam String lname,
                                                  @RequestParam String username,
                                                  @RequestParam(required = false) MultipartFile profilePicture,
-                                                 @RequestHeader(value = "Authorization", required = false) String authHeader,
                                                  HttpServletRequest request) {
         try {
-            String token = extractBearerToken(request, authHeader);
-            if (token == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            JwtPrincipal principal = principal(request);
+            if (principal == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 
-            Long teacherId = jwtUtil.extractTeacherId(token);
+            Long teacherId = principal.teacherId();
             Student updatedStudent = studentService.updateStudent(
                     studentID, fname, lname, username, profilePicture, teacherId);
 
@@ -126,14 +134,12 @@ public class StudentController {
 
     // 🔒 requires valid JWT
     @GetMapping("/all")
-    public ResponseEntity<List<Student>> getAllStudents(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
-            HttpServletRequest request) {
+    public ResponseEntity<List<Student>> getAllStudents(HttpServletRequest request) {
 
-        String token = extractBearerToken(request, authHeader);
-        if (token == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        JwtPrincipal principal = principal(request);
+        if (principal == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 
-        Long teacherId = jwtUtil.extractTeacherId(token);
+        Long teacherId = principal.teacherId();
         // System.out.println("Teacher ID (students/all): " + teacherId);
 
         Teacher teacher = teacherRepository.findById(teacherId)
@@ -141,16 +147,83 @@ public class StudentController {
 
         List<Student> students = studentService.getStudentsByTeacher(teacher);
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
         for (Student student : students) {
             if (student.getCreatedAt() != null) {
-                String formattedDate = student.getCreatedAt().format(formatter);
+                String formattedDate = student.getCreatedAt().format(CREATED_AT_FORMAT);
                 student.setFormattedCreatedAt(formattedDate);
             }
         }
         return new ResponseEntity<>(students, HttpStatus.OK);
     }
 
+    // 🔒 paged roster for the current teacher; pictures as URLs, no passwords
+    @GetMapping("/roster")
+    public ResponseEntity<PageResponse<StudentSummaryDTO>> getRoster(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "25") int size,
+            @RequestParam(defaultValue = "lname") String sort,
+            @RequestParam(defaultValue = "asc") String dir,
+            HttpServletRequest request) {
+
+        JwtPrincipal principal = principal(request);
+        if (principal == null || principal.teacherId() == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        if (!ROSTER_SORT_FIELDS.contains(sort) || page < 0 || size < 1) return ResponseEntity.badRequest().build();
+
+        Sort.Direction direction = "desc".equalsIgnoreCase(dir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, Math.min(size, MAX_ROSTER_PAGE_SIZE),
+                Sort.by(direction, sort).and(Sort.by("studentID")));
+
+        return ResponseEntity.ok(PageResponse.of(studentService.getRosterPage(principal.teacherId(), pageable)));
+    }
+
+    // 🔒 decrypted password for one of the teacher's own students
+    @GetMapping("/{studentID}/password")
+    public ResponseEntity<Map<String, String>> getStudentPassword(@PathVariable Long studentID,
+                                                                  HttpServletRequest request) {
+        JwtPrincipal principal = principal(request);
+        if (principal == null || principal.teacherId() == null) return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+
+        return studentService.getDecryptedPassword(studentID, principal.teacherId())
+                .map(password -> ResponseEntity.ok(Map.of("password", password)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Profile picture with a content-hash ETag; ?size=64|128|256 returns a cached thumbnail
+    @GetMapping("/{studentID}/photo")
+    public ResponseEntity<Resource> getStudentPhoto(@PathVariable Long studentID,
+                                                    @RequestParam(value = "v", required = false) String version,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (size != null && !ThumbnailService.SIZES.contains(size)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // revalidation only reads student_media.content_hash; the media store is read only on a miss
+        String hash = studentService.getProfilePictureHash(studentID).orElse(null);
+        if (hash == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = HttpCacheUtil.etag(size == null ? hash : hash + "-" + size);
+        CacheControl cacheControl = photoCacheControl(hash, version);
+
+        if (HttpCacheUtil.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        Optional<Resource> photo = studentService.getProfilePicture(hash);
+        if (photo.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // the original is streamed from the store; thumbnails come from the in-memory cache
+        Resource body = size == null ? photo.get() : new ByteArrayResource(thumbnailService.thumbnail(hash, photo.get(), size));
+        return ResponseEntity.ok()
+                .contentType(ImageUtil.detectImageType(body))
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(body);
+    }
+
     @PostMapping("/student-login")
     public ResponseEntity<Map<String, String>> loginStudent(@RequestBody Map<String, String> request) {
         String username = request.get("username");
@@ -176,9 +249,14 @@ public class StudentController {
                 .orElseThrow(() -> new RuntimeException("Student not found."));
 
         String token = tokenService.createTokenForStudent(s);
-        String qrUrl = publicApiBaseUrl + "/public/qr-login?token=" +
-                URLEncoder.encode(token, StandardCharsets.UTF_8);
+        return ResponseEntity.ok(Map.of("qrUrl", tokenService.qrLoginUrl(token)));
+    }
 
-        return ResponseEntity.ok(Map.of("qrUrl", qrUrl));
+    /** Versioned URL -> content can't change, cache for a year; bare URL -> always revalidate (cheap 304). */
+    private CacheControl photoCacheControl(String hash, String version) {
+        if (version != null && version.length() >= Student.PHOTO_VERSION_LENGTH && hash.startsWith(version)) {
+            return CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        }
+        return CacheControl.noCache();
     }
 }
@@ -1,12 +1,10 @@
 package edu.cit.spedermath.controller;
 
+import edu.cit.spedermath.dto.BatchSubmitResult;
 import edu.cit.spedermath.dto.StudentProgressDTO;
-import edu.cit.spedermath.model.Lesson;
-import edu.cit.spedermath.model.Student;
 import edu.cit.spedermath.model.StudentProgress;
 import edu.cit.spedermath.service.StudentProgressService;
 import edu.cit.spedermath.service.LessonService;
-import edu.cit.spedermath.service.StudentService;
 import edu.cit.spedermath.service.StudentAttemptService;
 import edu.cit.spedermath.dto.AttemptHistoryDTO;
 import org.springframework.http.HttpStatus;
@@ -15,8 +13,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import java.util.Optional;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
@@ -33,9 +29,6 @@ public class StudentProgressController {
     @Autowired
     private LessonService lessonService;
 
-    @Autowired
-    private StudentService studentService;
-
     public StudentProgressController(StudentProgressService service) {
         this.service = service;
     }
@@ -48,19 +41,7 @@ public class StudentProgressController {
         }
         Long studentId = Long.parseLong(authentication.getName()); // unify extraction
 
-        List<StudentProgress> progressList = service.getProgressByStudent(studentId);
-
-        List<StudentProgressDTO> dtoList = progressList.stream().map(p -> {
-            StudentProgressDTO dto = new StudentProgressDTO();
-            dto.setProgressID(p.getProgressID());
-            dto.setScore(p.getScore());
-            dto.setStatus(p.getStatus());
-            dto.setLastUpdated(p.getLastUpdated());
-            dto.setUnlocked(p.isUnlocked());
-            dto.setTimeSpentInSeconds(p.getTimeSpentInSeconds());
-            if (p.getLesson() != null) dto.setLessonId(p.getLesson().getLessonID());
-            return dto;
-        }).toList();
+        List<StudentProgressDTO> dtoList = service.getProgressByStudent(studentId);
 
         return ResponseEntity.ok(dtoList.isEmpty() ? java.util.Collections.emptyList() : dtoList);
     }  
@@ -79,48 +60,30 @@ public class StudentProgressController {
     public ResponseEntity<StudentProgress> submitLesson(@RequestBody StudentProgressDTO progressDTO,
                                                         Authentication authentication) {
         Long studentId = extractStudentIdFromAuthentication(authentication);
-        
-        // Create or update the StudentProgress object from the DTO
-        StudentProgress incomingProgress = new StudentProgress();
-        incomingProgress.setScore(progressDTO.getScore());
-        incomingProgress.setStatus(progressDTO.getStatus());
-        incomingProgress.setTimeSpentInSeconds(progressDTO.getTimeSpentInSeconds());
-        
-        // Assuming the lessonId is provided in the DTO and is used to fetch the corresponding lesson
-        Optional<Lesson> lessonOpt = lessonService.getLessonById(progressDTO.getLessonId());
-        if (lessonOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
-        }
-        Lesson lesson = lessonOpt.get();
-        incomingProgress.setLesson(lesson);
 
         if (progressDTO.getLessonId() == null) {
             throw new IllegalArgumentException("Lesson ID must not be null");
         }
-        
-        // Fetch the student from the database
-        Student student = studentService.getStudentById(studentId)
-            .orElseThrow(() -> new RuntimeException("Student not found."));
-        
-        incomingProgress.setStudent(student);
-        incomingProgress.setLastUpdated(LocalDate.now());
-        incomingProgress.setUnlocked(true); // Set unlocked to true after submission
-        
-        // Save the progress in the repository
-        StudentProgress savedProgress = service.submitLessonProgress(incomingProgress, studentId);
-
-        // Log the attempt using StudentAttemptService
-        studentAttemptService.logAttempt(
-            student,
-            lesson,
-            progressDTO.getScore(),
-            progressDTO.getStatus(),
-            progressDTO.getTimeSpentInSeconds() != null 
-                ? progressDTO.getTimeSpentInSeconds().intValue() 
-                : null
-        );
+        // in-memory catalog lookup; the service loads the student and logs the attempt itself
+        if (lessonService.getLessonById(progressDTO.getLessonId()).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
 
-        return ResponseEntity.ok(savedProgress);
+        return ResponseEntity.ok(service.submitLessonProgress(progressDTO, studentId));
+    }
+
+    // Endpoint to submit queued (offline) results in one go; per-item outcomes in request order
+    @PostMapping("/submit-batch")
+    public ResponseEntity<List<BatchSubmitResult>> submitLessonBatch(@RequestBody List<StudentProgressDTO> items,
+                                                                     Authentication authentication) {
+        Long studentId = extractStudentIdFromAuthentication(authentication);
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.ok(java.util.Collections.emptyList());
+        }
+        if (items.size() > StudentProgressService.MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(service.submitLessonProgressBatch(items, studentId));
     }
 
     // Endpoint to save partial progress
@@ -154,27 +117,12 @@ public class StudentProgressController {
     ) {
         Long studentId = extractStudentIdFromAuthentication(authentication);
 
-        // Current = StudentProgress → StudentProgressDTO (using your existing DTO shape)
-        var progressOpt = service.getStudentLessonProgress(studentId, lessonId);
-        StudentProgressDTO current = null;
-        if (progressOpt.isPresent()) {
-            var p = progressOpt.get();
-            var dto = new StudentProgressDTO();
-            dto.setProgressID(p.getProgressID());
-            dto.setScore(p.getScore());
-            dto.setStatus(p.getStatus());
-            dto.setLastUpdated(p.getLastUpdated());
-            dto.setUnlocked(p.isUnlocked());
-            dto.setTimeSpentInSeconds(p.getTimeSpentInSeconds());
-            if (p.getLesson() != null) dto.setLessonId(p.getLesson().getLessonID());
-            current = dto;
-        }
+        // Current = StudentProgressDTO, projected in the query
+        StudentProgressDTO current = service.getStudentLessonProgressDTO(studentId, lessonId).orElse(null);
 
-        // Previous = last StudentAttempt DTO for this lesson (already mapped by your service)
+        // Previous = latest StudentAttempt for this lesson (single projected row)
         AttemptHistoryDTO previousAttempt = studentAttemptService
-                .getHistoryDTOForLesson(studentId, lessonId)
-                .stream()
-                .findFirst()   // list is already DESC by attemptedAt
+                .getLatestAttemptDTO(studentId, lessonId)
                 .orElse(null);
 
         Map<String, Object> body = new HashMap<>();
@@ -2,110 +2,129 @@ package edu.cit.spedermath.controller;
 
 import edu.cit.spedermath.dto.SummarizeReq;
 import edu.cit.spedermath.dto.SummarizeResp;
+import edu.cit.spedermath.service.SummarizerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class SummarizerController {
 
-    @Value("${openai.api.key:}")
-    private String openAiKey;
+    private static final Logger log = LoggerFactory.getLogger(SummarizerController.class);
 
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    private final SummarizerService summarizer;
+    private final Duration requestTimeout;
 
-    @PostMapping("/summarize")
-    public SummarizeResp summarize(@RequestBody SummarizeReq req) {
-        try {
-            if (openAiKey == null || openAiKey.isBlank()) {
-                return new SummarizeResp("Missing OpenAI API key. Add it in application.properties.");
-            }
-
-            final String text = req.text() != null ? req.text() : "";
-            final int maxWordsReq = req.maxWords() != null ? req.maxWords() : 180;
-            final boolean useGpt = req.useGpt() != null && req.useGpt();
-
-            // Map words -> tokens (roughly 1 word ≈ 1.3 tokens). Add a little buffer.
-            int maxTokens = (int) Math.round(maxWordsReq * 1.3) + 50;
-            // Clamp to a sane range for small/mini models.
-            maxTokens = Math.max(256, Math.min(2048, maxTokens));
-
-            // Choose model (keep your logic)
-            final String model = useGpt ? "gpt-4o-mini" : "gpt-5-nano";
-
-            final String result = callOpenAI(text, maxTokens, model);
-            return new SummarizeResp(result);
+    public SummarizerController(SummarizerService summarizer,
+                                @Value("${app.summarizer.request-timeout:PT90S}") Duration requestTimeout) {
+        this.summarizer = summarizer;
+        this.requestTimeout = requestTimeout;
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new SummarizeResp("Internal error: " + e.getMessage());
+    // Async: the Tomcat worker is released while the LLM call runs; 429 when the summarizer queue is full
+    @PostMapping("/summarize")
+    public DeferredResult<ResponseEntity<SummarizeResp>> summarize(@RequestBody SummarizeReq req) {
+        DeferredResult<ResponseEntity<SummarizeResp>> result = new DeferredResult<>(requestTimeout.toMillis());
+        if (!summarizer.isConfigured()) {
+            result.setResult(ResponseEntity.ok(new SummarizeResp(SummarizerService.MISSING_KEY)));
+            return result;
         }
-    }
 
-    private String callOpenAI(String prompt, int maxTokens, String model) throws Exception {
-        final URL url = new URL(OPENAI_URL);
-        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Authorization", "Bearer " + openAiKey);
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setDoOutput(true);
-        // Optional: avoid early timeouts for longer outputs
-        conn.setConnectTimeout(25_000);
-        conn.setReadTimeout(60_000);
-
-        // Messages
-        JSONObject userMessage = new JSONObject()
-                .put("role", "user")
-                .put("content", prompt);
-
-        // Encourage clean endings with your tag and avoid mid-sentence cutoffs
-        JSONArray stopSeq = new JSONArray().put("</assessment>");
-
-        JSONObject payload = new JSONObject()
-                .put("model", model)
-                .put("messages", new JSONArray().put(userMessage))
-                .put("temperature", 0.2)
-                .put("max_tokens", maxTokens)
-                .put("stop", stopSeq);         
-
-        byte[] out = payload.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(out);
+        CompletableFuture<String> summary;
+        try {
+            summary = summarizer.summarize(SummarizerService.Request.of(req));
+        } catch (RejectedExecutionException e) {
+            result.setResult(tooManyRequests());
+            return result;
         }
 
-        int status = conn.getResponseCode();
-        InputStream is = (status >= 200 && status < 300) ? conn.getInputStream() : conn.getErrorStream();
+        result.onTimeout(() -> {
+            summary.cancel(true); // also cancels the upstream call
+            result.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(new SummarizeResp("The summarizer timed out.")));
+        });
+        summary.whenComplete((text, e) -> {
+            if (e == null) {
+                result.setResult(ResponseEntity.ok(new SummarizeResp(text)));
+            } else if (!summary.isCancelled()) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof RejectedExecutionException) { // joined an identical call that was turned away
+                    result.setResult(tooManyRequests());
+                    return;
+                }
+                log.warn("Summarize call failed", cause);
+                result.setResult(ResponseEntity.ok(new SummarizeResp("Internal error: " + cause.getMessage())));
+            }
+        });
+        return result;
+    }
 
-        StringBuilder respBuilder = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = br.readLine()) != null) respBuilder.append(line);
+    // Streaming variant (Accept: text/event-stream): "data: {"delta": "..."}" events as the model writes,
+    // then "event: done", or "event: error" with {"error": "..."}
+    @PostMapping(value = "/summarize", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> summarizeStream(@RequestBody SummarizeReq req) {
+        SseEmitter emitter = new SseEmitter(requestTimeout.toMillis());
+        if (!summarizer.isConfigured()) {
+            sendError(emitter, SummarizerService.MISSING_KEY);
+            return ResponseEntity.ok(emitter);
         }
-        String respStr = respBuilder.toString();
 
-        if (status < 200 || status >= 300) {
-            return "OpenAI API error: " + status + " " + conn.getResponseMessage() + " " + respStr;
+        Runnable cancel;
+        try {
+            cancel = summarizer.stream(SummarizerService.Request.of(req), new SummarizerService.StreamListener() {
+                @Override
+                public void onChunk(String text) throws IOException {
+                    emitter.send(SseEmitter.event().data(Map.of("delta", text), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void onComplete() throws IOException {
+                    emitter.send(SseEmitter.event().name("done").data("[DONE]"));
+                    emitter.complete();
+                }
+
+                @Override
+                public void onError(String message) {
+                    sendError(emitter, message);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "5").build();
         }
 
-        JSONObject data = new JSONObject(respStr);
-        JSONArray choices = data.optJSONArray("choices");
-        if (choices != null && choices.length() > 0) {
-            JSONObject msg = choices.getJSONObject(0).optJSONObject("message");
-            if (msg != null) {
-                String content = msg.optString("content", "").trim();
-                if (!content.isEmpty()) return content;
-            }
+        // client went away or took too long: stop the upstream generation
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        emitter.onCompletion(cancel);
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static ResponseEntity<SummarizeResp> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new SummarizeResp("The summarizer is busy. Please try again in a few seconds."));
+    }
+
+    private static void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
         }
-        return "No response from OpenAI.";
     }
 }
@@ -1,20 +1,30 @@
 package edu.cit.spedermath.controller;
 
 import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.service.StudentLoginTokenService;
+import edu.cit.spedermath.service.StudentLoginTokenService.IssuedToken;
 import edu.cit.spedermath.service.TeacherService;
+import edu.cit.spedermath.util.HttpCacheUtil;
+import edu.cit.spedermath.util.ImageUtil;
 import edu.cit.spedermath.util.JwtUtil;
+import edu.cit.spedermath.util.QrSheetPdf;
 import edu.cit.spedermath.repository.TeacherRepository;
+import edu.cit.spedermath.security.JwtPrincipal;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.MediaType;
 import org.springframework.http.CacheControl;
+import org.springframework.core.io.Resource;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import jakarta.servlet.http.HttpServletRequest;
 
 import edu.cit.spedermath.service.GoogleAuthService;
@@ -41,6 +51,11 @@ public class TeacherController {
     @Autowired
     private GoogleAuthService googleAuthService;
 
+    @Autowired
+    private StudentLoginTokenService tokenService;
+
+    private static final int PHOTO_VERSION_LENGTH = 12;
+
     
     @PostMapping("/register")
     public ResponseEntity<String> registerTeacher(@RequestBody Map<String, String> request) {
@@ -120,7 +135,7 @@ public class TeacherController {
                         "email", teacher.getEmail(),
                         "name", teacher.getName(),
                         "id", String.valueOf(teacher.getId()),
-                        "photoUrl", "/api/teachers/" + teacher.getId() + "/photo"
+                        "photoUrl", photoUrl(teacher)
                 )))
                 .orElseGet(() -> new ResponseEntity<>("Teacher not found!", HttpStatus.NOT_FOUND));
     }
@@ -147,7 +162,7 @@ public class TeacherController {
                         "lname", teacher.getLname(),
                         "email", teacher.getEmail(),
                         "name", teacher.getName(),
-                        "photoUrl", "/api/teachers/" + teacher.getId() + "/photo"
+                        "photoUrl", photoUrl(teacher)
                 )))
                 .orElseGet(() -> new ResponseEntity<>("Teacher not found!", HttpStatus.NOT_FOUND));
     }
@@ -155,12 +170,12 @@ public class TeacherController {
     
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentTeacher(HttpServletRequest request) {
-        String token = jwtUtil.extractToken(request);
-        if (token == null || !jwtUtil.validateToken(token)) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(request);
+        if (principal == null) {
             return ResponseEntity.status(401).body(Map.of("message", "Invalid or missing token"));
         }
 
-        Long teacherId = jwtUtil.extractTeacherId(token);
+        Long teacherId = principal.teacherId();
         if (teacherId == null) {
             return ResponseEntity.status(401).body(Map.of("message", "Token missing teacher id"));
         }
@@ -172,7 +187,7 @@ public class TeacherController {
                         "lname", t.getLname(),
                         "email", t.getEmail(),
                         "name", t.getName(),
-                        "photoUrl", "/api/teachers/" + t.getId() + "/photo"
+                        "photoUrl", photoUrl(t)
                 )))
                 .orElseGet(() -> ResponseEntity.status(404).body(Map.of("message", "Teacher not found")));
     }
@@ -180,12 +195,12 @@ public class TeacherController {
   
     @PutMapping("/me")
     public ResponseEntity<?> updateTeacherProfile(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
-        String token = jwtUtil.extractToken(httpRequest);
-        if (token == null || !jwtUtil.validateToken(token)) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(httpRequest);
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid or missing token"));
         }
 
-        Long teacherId = jwtUtil.extractTeacherId(token);
+        Long teacherId = principal.teacherId();
         if (teacherId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid token"));
         }
@@ -217,20 +232,59 @@ public class TeacherController {
                 "lname", teacher.getLname(),
                 "email", teacher.getEmail(),
                 "name", teacher.getName(),
-                "photoUrl", "/api/teachers/" + teacher.getId() + "/photo",
+                "photoUrl", photoUrl(teacher),
                 "message", "Profile updated successfully!"
         ));
     }
 
+    // --- QR login tokens for the whole roster (one transaction, one batch insert) ---
+    @PostMapping("/me/qr-tokens")
+    public ResponseEntity<?> createRosterQrTokens(HttpServletRequest request) {
+        Long teacherId = teacherId(request);
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid or missing token"));
+        }
+
+        List<IssuedToken> issued = tokenService.createTokensForTeacher(teacherId);
+        List<Map<String, String>> tokens = issued.stream()
+                .map(t -> Map.of(
+                        "studentId", String.valueOf(t.studentId()),
+                        "name", t.fname() + " " + t.lname(),
+                        "qrUrl", tokenService.qrLoginUrl(t.token())))
+                .toList();
+        return ResponseEntity.ok(Map.of(
+                "expiresAt", issued.isEmpty() ? "" : issued.get(0).expiresAt().toString(),
+                "tokens", tokens
+        ));
+    }
+
+    /** Same tokens as a print-ready sheet; chosen with {@code Accept: application/pdf}. */
+    @PostMapping(value = "/me/qr-tokens", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<byte[]> createRosterQrSheet(HttpServletRequest request) {
+        Long teacherId = teacherId(request);
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        List<QrSheetPdf.Entry> entries = tokenService.createTokensForTeacher(teacherId).stream()
+                .map(t -> new QrSheetPdf.Entry(t.fname() + " " + t.lname(), tokenService.qrLoginUrl(t.token())))
+                .toList();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"qr-login-sheet.pdf\"")
+                .cacheControl(CacheControl.noStore())
+                .body(QrSheetPdf.render(entries));
+    }
+
    
     @PutMapping("/change-password")
     public ResponseEntity<String> changePassword(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
-        String token = jwtUtil.extractToken(httpRequest);
-        if (token == null || !jwtUtil.validateToken(token)) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(httpRequest);
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or missing token");
         }
 
-        Long teacherId = jwtUtil.extractTeacherId(token);
+        Long teacherId = principal.teacherId();
         if (teacherId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
         }
@@ -264,39 +318,51 @@ public class TeacherController {
         return ResponseEntity.ok("Password changed successfully");
     }
 
+    // Revalidation only reads photo_hash; the media store is read only when the photo actually changed
     @GetMapping(value = "/{id}/photo")
-    public ResponseEntity<byte[]> getTeacherPhoto(@PathVariable Long id) {
-        var teacherOpt = teacherRepository.findById(id);
-        if (teacherOpt.isEmpty() || teacherOpt.get().getPhotoBlob() == null) {
+    public ResponseEntity<Resource> getTeacherPhoto(@PathVariable Long id,
+                                                    @RequestParam(value = "v", required = false) String version,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String hash = teacherService.getPhotoHash(id).orElse(null);
+        if (hash == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (HttpCacheUtil.matches(ifNoneMatch, HttpCacheUtil.etag(hash))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(HttpCacheUtil.etag(hash))
+                    .cacheControl(photoCacheControl(hash, version))
+                    .build();
+        }
+
+        var photo = teacherService.getPhoto(hash);
+        if (photo.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        byte[] bytes = teacherOpt.get().getPhotoBlob();
-        MediaType type = detectImageType(bytes); // <-- detect, don't assume PNG
+        MediaType type = ImageUtil.detectImageType(photo.get()); // <-- detect, don't assume PNG
 
         return ResponseEntity.ok()
                 .contentType(type)
-                .cacheControl(CacheControl.noCache())
-                .body(bytes);
+                .eTag(HttpCacheUtil.etag(hash))
+                .cacheControl(photoCacheControl(hash, version))
+                .body(photo.get());
     }
 
-    private MediaType detectImageType(byte[] b) {
-        if (b != null && b.length >= 8 &&
-            (b[0] & 0xFF) == 0x89 && b[1] == 0x50 && b[2] == 0x4E && b[3] == 0x47) {
-            return MediaType.IMAGE_PNG; // PNG
-        }
-        if (b != null && b.length >= 3 &&
-            (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8) {
-            return MediaType.IMAGE_JPEG; // JPEG
-        }
-        if (b != null && b.length >= 12 &&
-            b[0] == 'R' && b[1] == 'I' && b[2] == 'F' &&
-            b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
-            return MediaType.parseMediaType("image/webp"); // WEBP
-        }
-        if (b != null && b.length >= 6 &&
-            b[0] == 'G' && b[1] == 'I' && b[2] == 'F') {
-            return MediaType.IMAGE_GIF;
+    private Long teacherId(HttpServletRequest request) {
+        JwtPrincipal principal = jwtUtil.resolvePrincipal(request);
+        return principal != null ? principal.teacherId() : null;
+    }
+
+    /** photoUrl carries a hash prefix, so the URL changes whenever the photo does. */
+    private String photoUrl(Teacher t) {
+        String url = "/api/teachers/" + t.getId() + "/photo";
+        return t.getPhotoHash() != null ? url + "?v=" + t.getPhotoHash().substring(0, PHOTO_VERSION_LENGTH) : url;
+    }
+
+    /** Versioned URL -> content can't change, cache for a year; bare URL -> always revalidate (cheap 304). */
+    private CacheControl photoCacheControl(String hash, String version) {
+        if (version != null && version.length() >= PHOTO_VERSION_LENGTH && hash.startsWith(version)) {
+            return CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
         }
-        return MediaType.APPLICATION_OCTET_STREAM;
+        return CacheControl.noCache();
     }
 }
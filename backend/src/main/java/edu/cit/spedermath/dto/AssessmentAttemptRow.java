@@ -0,0 +1,5 @@
+package edu.cit.spedermath.dto;
+
+/** One assessment attempt, reduced to what report prompts use. */
+public record AssessmentAttemptRow(Long studentId, Long lessonId, Integer score, Integer timeSpentSeconds,
+                                   Long attemptId) {}
@@ -0,0 +1,9 @@
+package edu.cit.spedermath.dto;
+
+import edu.cit.spedermath.enums.ReportScope;
+
+import java.time.LocalDateTime;
+
+/** {@code summary} is the raw model output (wrapped in <assessment>); null latestAttemptId = no attempts yet. */
+public record AssessmentReportDTO(ReportScope scope, Long ownerId, Long latestAttemptId, String summary,
+                                  LocalDateTime generatedAt) {}
@@ -0,0 +1,33 @@
+package edu.cit.spedermath.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an attempt history ordered by (attemptedAt DESC, attemptId DESC).
+ * Clients only see the opaque base64url form and must not build it themselves.
+ */
+public record AttemptCursor(LocalDateTime attemptedAt, Long attemptId) {
+
+    public static AttemptCursor of(AttemptHistoryDTO last) {
+        return new AttemptCursor(last.getAttemptedAt(), last.getAttemptId());
+    }
+
+    public String encode() {
+        String raw = attemptedAt + "|" + attemptId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException if the cursor was not produced by {@link #encode()} */
+    public static AttemptCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            return new AttemptCursor(LocalDateTime.parse(raw.substring(0, bar)), Long.valueOf(raw.substring(bar + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package edu.cit.spedermath.dto;
 import java.time.LocalDateTime;
 
 import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
 
 public class AttemptHistoryDTO {
     private Long attemptId;
@@ -35,6 +36,14 @@ public class AttemptHistoryDTO {
         this.unlockThreshold = unlockThreshold;
     }
 
+    /** JPQL projection constructor: status arrives as the enum. */
+    public AttemptHistoryDTO(Long attemptId, Long lessonId, String lessonTitle,
+                             Integer score, Status status, Integer timeSpentSeconds,
+                             LocalDateTime attemptedAt, LessonType lessonType, Integer lessonOrder, Integer maxScore, Integer unlockThreshold) {
+        this(attemptId, lessonId, lessonTitle, score, status != null ? status.name() : null, timeSpentSeconds,
+                attemptedAt, lessonType, lessonOrder, maxScore, unlockThreshold);
+    }
+
     public Long getAttemptId() { return attemptId; }
     public void setAttemptId(Long attemptId) { this.attemptId = attemptId; }
     public Long getLessonId() { return lessonId; }
@@ -0,0 +1,13 @@
+package edu.cit.spedermath.dto;
+
+/** Outcome of one item of POST /api/student-progress/submit-batch (same order as the request). */
+public record BatchSubmitResult(int index, Long lessonId, boolean success, Long progressId, String error) {
+
+    public static BatchSubmitResult ok(int index, Long lessonId, Long progressId) {
+        return new BatchSubmitResult(index, lessonId, true, progressId, null);
+    }
+
+    public static BatchSubmitResult failed(int index, Long lessonId, String error) {
+        return new BatchSubmitResult(index, lessonId, false, null, error);
+    }
+}
@@ -0,0 +1,6 @@
+package edu.cit.spedermath.dto;
+
+import java.util.List;
+
+/** One keyset page; pass {@code nextCursor} back as {@code after} to continue, null when there is nothing more. */
+public record CursorPage<T>(List<T> items, String nextCursor) {}
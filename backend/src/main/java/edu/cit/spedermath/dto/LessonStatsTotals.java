@@ -0,0 +1,6 @@
+package edu.cit.spedermath.dto;
+
+/** Raw per-lesson sums/counts for one teacher; LessonStatsDTO averages are derived from these. */
+public record LessonStatsTotals(Long lessonId, Long rows, Long scoreSum, Long timeSum, Long timeCount,
+                                Long retakesSum, Long unlockedCount, Long notUnlockedCount, Long completedCount,
+                                Long inProgressCount, Long notStartedCount, Long failedCount) {}
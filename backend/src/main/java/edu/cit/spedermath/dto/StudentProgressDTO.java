@@ -12,6 +12,20 @@ public class StudentProgressDTO {
     private Long timeSpentInSeconds;
     private Long lessonId;
 
+    public StudentProgressDTO() {}
+
+    // JPQL projection (StudentProgressRepository)
+    public StudentProgressDTO(Long progressID, int score, Status status, LocalDate lastUpdated,
+                              boolean unlocked, Long timeSpentInSeconds, Long lessonId) {
+        this.progressID = progressID;
+        this.score = score;
+        this.status = status;
+        this.lastUpdated = lastUpdated;
+        this.unlocked = unlocked;
+        this.timeSpentInSeconds = timeSpentInSeconds;
+        this.lessonId = lessonId;
+    }
+
     // Getters and Setters
     public Long getProgressID() {
         return progressID;
@@ -0,0 +1,53 @@
+package edu.cit.spedermath.dto;
+
+import edu.cit.spedermath.model.Student;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/** Roster row: everything but the password and picture bytes (the picture is linked by URL). */
+public class StudentSummaryDTO {
+
+    private static final DateTimeFormatter CREATED_AT_FORMAT = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+
+    private Long studentID;
+    private String fname;
+    private String lname;
+    private String username;
+    private LocalDate birthdate;
+    private LocalDate createdAt;
+    private String formattedCreatedAt;
+    private String profilePictureUrl;
+
+    public StudentSummaryDTO() {}
+
+    /** Used by the JPQL constructor projection in StudentRepository. */
+    public StudentSummaryDTO(Long studentID, String fname, String lname, String username,
+                             LocalDate birthdate, LocalDate createdAt, Long profileMediaId, String profilePictureHash) {
+        this.studentID = studentID;
+        this.fname = fname;
+        this.lname = lname;
+        this.username = username;
+        this.birthdate = birthdate;
+        this.createdAt = createdAt;
+        this.formattedCreatedAt = createdAt != null ? createdAt.format(CREATED_AT_FORMAT) : null;
+        this.profilePictureUrl = profileMediaId != null ? Student.profilePictureUrl(studentID, profilePictureHash) : null;
+    }
+
+    public Long getStudentID() { return studentID; }
+    public void setStudentID(Long studentID) { this.studentID = studentID; }
+    public String getFname() { return fname; }
+    public void setFname(String fname) { this.fname = fname; }
+    public String getLname() { return lname; }
+    public void setLname(String lname) { this.lname = lname; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public LocalDate getBirthdate() { return birthdate; }
+    public void setBirthdate(LocalDate birthdate) { this.birthdate = birthdate; }
+    public LocalDate getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+    public String getFormattedCreatedAt() { return formattedCreatedAt; }
+    public void setFormattedCreatedAt(String formattedCreatedAt) { this.formattedCreatedAt = formattedCreatedAt; }
+    public String getProfilePictureUrl() { return profilePictureUrl; }
+    public void setProfilePictureUrl(String profilePictureUrl) { this.profilePictureUrl = profilePictureUrl; }
+}
@@ -0,0 +1,6 @@
+package edu.cit.spedermath.enums;
+
+public enum ReportScope {
+    STUDENT,
+    CLASS
+}
@@ -1,5 +1,8 @@
 package edu.cit.spedermath.filter;
 
+import edu.cit.spedermath.security.JwtPrincipal;
+import edu.cit.spedermath.security.RouteClassifier;
+import edu.cit.spedermath.security.VerifiedTokenCache;
 import edu.cit.spedermath.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -12,12 +15,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,28 +26,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
-    private static final AntPathMatcher MATCHER = new AntPathMatcher();
-
-    private static final List<String> PUBLIC_WHITELIST = List.of(
-            "/swagger-ui/**",
-            "/v3/api-docs/**",
-            "/api/teachers/login",
-            "/api/teachers/register",
-            "/api/students/student-login",
-            "/api/lessons/**",
-            "/api/lesson-stats",
-            "/api/students/*/qr-token",
-            "/public/**",
-            "/error",
-            "/api/summarize",
-            "/api/teachers/google-login"
-    );
-
-    private boolean isPublic(String path) {
-        for (String p : PUBLIC_WHITELIST) {
-            if (MATCHER.match(p, path)) return true;
-        }
-        return false;
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private RouteClassifier routes;
+
+    private void authenticate(Long id, JwtPrincipal principal) {
+        if (id == null) return;
+        UserDetails user = new User(String.valueOf(id), "", Collections.emptyList());
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        auth.setDetails(principal);
+        SecurityContextHolder.getContext().setAuthentication(auth);
     }
 
     @Override
@@ -64,8 +56,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Public routes
-        if (isPublic(path)) {
+        // Public routes, and areas where no principal is extracted
+        RouteClassifier.Access access = routes.classify(path);
+        if (access == RouteClassifier.Access.PUBLIC || access == RouteClassifier.Access.NONE) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -75,64 +68,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
 
             try {
-                if (!jwtUtil.validateToken(token)) {
-                    filterChain.doFilter(request, response);
-                    return;
-                }
+                // Verify once (or reuse a cached verification); controllers read the same principal from the request
+                JwtPrincipal principal = tokenCache.getOrVerify(token, jwtUtil::parsePrincipal);
+                request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
 
                 // ===== Route-based principal extraction =====
-                if (path.startsWith("/api/student-progress")) {
+                switch (access) {
                     // STUDENT-ONLY area -> principal name must be pure numeric studentId
-                    Long studentId = jwtUtil.extractStudentId(token);
-                    if (studentId != null) {
-                        UserDetails user = new User(String.valueOf(studentId), "", Collections.emptyList());
-                        SecurityContextHolder.getContext().setAuthentication(
-                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                        );
-                    }
-                } else if (path.startsWith("/api/students")) {
-                    // Accept TEACHER or STUDENT tokens here; principal name stays numeric
-                    Long teacherId = jwtUtil.extractTeacherId(token);
-                    if (teacherId != null) {
-                        UserDetails user = new User(String.valueOf(teacherId), "", Collections.emptyList());
-                        SecurityContextHolder.getContext().setAuthentication(
-                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                        );
-                    } else {
-                        Long studentId = jwtUtil.extractStudentId(token);
-                        if (studentId != null) {
-                            UserDetails user = new User(String.valueOf(studentId), "", Collections.emptyList());
-                            SecurityContextHolder.getContext().setAuthentication(
-                                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                            );
-                        }
-                    }
-                } else if (path.startsWith("/api/teachers")) {
+                    case STUDENT -> authenticate(principal.studentId(), principal);
                     // TEACHER-ONLY area -> principal name is numeric teacherId
-                    Long teacherId = jwtUtil.extractTeacherId(token);
-                    if (teacherId != null) {
-                        UserDetails user = new User(String.valueOf(teacherId), "", Collections.emptyList());
-                        SecurityContextHolder.getContext().setAuthentication(
-                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                        );
-                    }
-                } else if (path.startsWith("/api/attempts")) {
-                    // ✅ NEW: Allow TEACHER or STUDENT to access attempts
-                    Long teacherId = jwtUtil.extractTeacherId(token);
-                    if (teacherId != null) {
-                        UserDetails user = new User(String.valueOf(teacherId), "", Collections.emptyList());
-                        SecurityContextHolder.getContext().setAuthentication(
-                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                        );
-                    } else {
-                        Long studentId = jwtUtil.extractStudentId(token);
-                        if (studentId != null) {
-                            UserDetails user = new User(String.valueOf(studentId), "", Collections.emptyList());
-                            SecurityContextHolder.getContext().setAuthentication(
-                                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
-                            );
-                        }
-                    }
+                    case TEACHER -> authenticate(principal.teacherId(), principal);
+                    // Accept TEACHER or STUDENT tokens here; principal name stays numeric
+                    case EITHER -> authenticate(principal.teacherId() != null ? principal.teacherId() : principal.studentId(), principal);
+                    default -> { }
                 }
                 // ============================================
 
@@ -0,0 +1,66 @@
+package edu.cit.spedermath.model;
+
+import edu.cit.spedermath.enums.ReportScope;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last generated AI assessment summary for a student (ownerId = studentId) or a teacher's class
+ * (ownerId = teacherId). Valid while the newest assessment attempt and the lesson table are unchanged.
+ */
+@Entity
+@Table(name = "assessment_report", uniqueConstraints = @UniqueConstraint(columnNames = {"scope", "owner_id"}))
+public class AssessmentReport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "report_id")
+    private Long reportId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReportScope scope;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    /** Highest attemptId the summary was built from. */
+    @Column(name = "latest_attempt_id", nullable = false)
+    private Long latestAttemptId;
+
+    /** LessonCatalog etag at generation time (titles and thresholds are part of the prompt). */
+    @Column(name = "lessons_etag", nullable = false, length = 80)
+    private String lessonsEtag;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "generated_at", nullable = false)
+    private LocalDateTime generatedAt;
+
+    public AssessmentReport() {}
+
+    public AssessmentReport(ReportScope scope, Long ownerId) {
+        this.scope = scope;
+        this.ownerId = ownerId;
+    }
+
+    public Long getReportId() { return reportId; }
+
+    public ReportScope getScope() { return scope; }
+
+    public Long getOwnerId() { return ownerId; }
+
+    public Long getLatestAttemptId() { return latestAttemptId; }
+    public void setLatestAttemptId(Long latestAttemptId) { this.latestAttemptId = latestAttemptId; }
+
+    public String getLessonsEtag() { return lessonsEtag; }
+    public void setLessonsEtag(String lessonsEtag) { this.lessonsEtag = lessonsEtag; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+}
@@ -0,0 +1,46 @@
+package edu.cit.spedermath.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/** Image bytes for the database-backed MediaStore, one row per distinct content. */
+@Entity
+@Table(name = "media_blob")
+public class MediaBlob {
+
+    /** SHA-256 (hex) of data. */
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Lob
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(name = "data", nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public MediaBlob() {}
+
+    public MediaBlob(String contentHash, byte[] data) {
+        this.contentHash = contentHash;
+        this.data = data;
+        this.sizeBytes = data.length;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getContentHash() { return contentHash; }
+
+    public byte[] getData() { return data; }
+
+    public long getSizeBytes() { return sizeBytes; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -7,13 +7,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import java.util.List;
 
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
-
 @Entity
 @Table(name = "student")
 public class Student {
 
+    /** Hex characters of the picture hash carried in its URL. */
+    public static final int PHOTO_VERSION_LENGTH = 12;
+
     @Transient
     private String formattedCreatedAt;
 
@@ -39,10 +39,15 @@ public class Student {
     @Column(name = "created_at", nullable = false)
     private LocalDate createdAt;
 
-    @Lob
-    @JdbcTypeCode(SqlTypes.VARBINARY)
-    @Column(name = "profile_picture")
-    private byte[] profilePicture;
+    /** student_media row holding the picture; the bytes are served by GET /api/students/{id}/photo. */
+    @Column(name = "profile_media_id")
+    @JsonIgnore
+    private Long profileMediaId;
+
+    /** SHA-256 (hex) of the picture, copied from student_media; versions the picture URL without a join. */
+    @Column(name = "profile_picture_hash", length = 64)
+    @JsonIgnore
+    private String profilePictureHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", nullable = false)
@@ -57,15 +62,14 @@ public class Student {
     public Student() {
     }
 
-    // Constructor with all fields except ID
-    public Student(String fname, String lname, String username, String password, LocalDate birthdate, LocalDate createdAt, byte[] profilePicture, Teacher teacher) {
+    // Constructor with all fields except ID (the picture is stored separately, see StudentMedia)
+    public Student(String fname, String lname, String username, String password, LocalDate birthdate, LocalDate createdAt, Teacher teacher) {
         this.fname = fname;
         this.lname = lname;
         this.username = username;
         this.password = password;
         this.birthdate = birthdate;
         this.createdAt = createdAt;
-        this.profilePicture = profilePicture;
         this.teacher = teacher;
     }
 
@@ -126,12 +130,30 @@ public class Student {
         this.birthdate = birthdate;
     }
 
-    public byte[] getProfilePicture() {
-        return profilePicture;
+    public Long getProfileMediaId() {
+        return profileMediaId;
+    }
+
+    public void setProfileMediaId(Long profileMediaId) {
+        this.profileMediaId = profileMediaId;
+    }
+
+    public String getProfilePictureHash() {
+        return profilePictureHash;
+    }
+
+    public void setProfilePictureHash(String profilePictureHash) {
+        this.profilePictureHash = profilePictureHash;
+    }
+
+    public String getProfilePictureUrl() {
+        return profileMediaId != null ? profilePictureUrl(studentID, profilePictureHash) : null;
     }
 
-    public void setProfilePicture(byte[] profilePicture) {
-        this.profilePicture = profilePicture;
+    /** Picture URL carrying a hash prefix, so it changes whenever the picture does; bare if the hash isn't known. */
+    public static String profilePictureUrl(Long studentID, String hash) {
+        String url = "/api/students/" + studentID + "/photo";
+        return hash != null ? url + "?v=" + hash.substring(0, PHOTO_VERSION_LENGTH) : url;
     }
 
     public Teacher getTeacher() {
@@ -5,7 +5,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "student_attempt")
+@Table(name = "student_attempt", indexes = {
+        // recent / history feeds: WHERE student_id = ? ORDER BY attempted_at DESC, attempt_id DESC
+        @Index(name = "idx_attempt_student_time", columnList = "student_id, attempted_at DESC, attempt_id DESC"),
+        // per-lesson history and "latest attempt for this lesson"
+        @Index(name = "idx_attempt_student_lesson_time", columnList = "student_id, lesson_id, attempted_at DESC, attempt_id DESC"),
+        // assessment-report sweep: attempts since the last run
+        @Index(name = "idx_attempt_time", columnList = "attempted_at")
+})
 public class StudentAttempt {
 
     @Id
@@ -0,0 +1,42 @@
+package edu.cit.spedermath.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/** A student's profile picture, by content hash; the bytes live in the MediaStore. */
+@Entity
+@Table(name = "student_media")
+public class StudentMedia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "media_id")
+    private Long mediaID;
+
+    @Column(name = "student_id", nullable = false, unique = true)
+    private Long studentId;
+
+    /** SHA-256 (hex) of the image: its key in the MediaStore, and the photo ETag. */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public StudentMedia() {}
+
+    public StudentMedia(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public Long getMediaID() { return mediaID; }
+
+    public Long getStudentId() { return studentId; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
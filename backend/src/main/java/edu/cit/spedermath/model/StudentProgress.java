@@ -8,8 +8,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "student_progress")
+@NamedEntityGraph(name = StudentProgress.WITH_STUDENT, attributeNodes = @NamedAttributeNode("student"))
 public class StudentProgress {
 
+    /** Ownership checks and the teacher's stats invalidation read the student; nothing else does. */
+    public static final String WITH_STUDENT = "StudentProgress.withStudent";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long progressID;
@@ -33,12 +37,12 @@ public class StudentProgress {
     @Column(name = "retakes_count", nullable = false)
     private int retakesCount; // Number of retakes
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     @JsonBackReference("student-progress") 
     private Student student;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lesson_id", nullable = false)
     @JsonBackReference("lesson-progress")
     private Lesson lesson;
@@ -5,9 +5,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
-
 @Entity
 @Table(name = "teacher")
 public class Teacher {
@@ -34,10 +31,13 @@ public class Teacher {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    @Lob
-    @JdbcTypeCode(SqlTypes.VARBINARY)
-    @Column(name = "photo_blob", columnDefinition = "BYTEA")
-    private byte[] photoBlob;
+    /** teacher_media row holding the photo. */
+    @Column(name = "photo_media_id")
+    private Long photoMediaId;
+
+    /** SHA-256 (hex) of the photo, copied from teacher_media; versions photoUrl and answers revalidations without a join. */
+    @Column(name = "photo_hash", length = 64)
+    private String photoHash;
 
     @Column(name = "google_id", length = 255, unique = true)
     private String googleId;
@@ -122,8 +122,11 @@ public class Teacher {
         this.students = students;
     }
 
-    public byte[] getPhotoBlob() { return photoBlob; }
-    public void setPhotoBlob(byte[] photoBlob) { this.photoBlob = photoBlob; }
+    public Long getPhotoMediaId() { return photoMediaId; }
+    public void setPhotoMediaId(Long photoMediaId) { this.photoMediaId = photoMediaId; }
+
+    public String getPhotoHash() { return photoHash; }
+    public void setPhotoHash(String photoHash) { this.photoHash = photoHash; }
 
     public String getGoogleId() {
         return googleId;
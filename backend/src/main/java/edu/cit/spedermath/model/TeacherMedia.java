@@ -0,0 +1,42 @@
+package edu.cit.spedermath.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/** A teacher's photo, by content hash; the bytes live in the MediaStore. */
+@Entity
+@Table(name = "teacher_media")
+public class TeacherMedia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "media_id")
+    private Long mediaID;
+
+    @Column(name = "teacher_id", nullable = false, unique = true)
+    private Long teacherId;
+
+    /** SHA-256 (hex) of the image: its key in the MediaStore, and the photo ETag. */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public TeacherMedia() {}
+
+    public TeacherMedia(Long teacherId) {
+        this.teacherId = teacherId;
+    }
+
+    public Long getMediaID() { return mediaID; }
+
+    public Long getTeacherId() { return teacherId; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
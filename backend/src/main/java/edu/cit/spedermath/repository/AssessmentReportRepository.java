@@ -0,0 +1,12 @@
+package edu.cit.spedermath.repository;
+
+import edu.cit.spedermath.enums.ReportScope;
+import edu.cit.spedermath.model.AssessmentReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface AssessmentReportRepository extends JpaRepository<AssessmentReport, Long> {
+
+    Optional<AssessmentReport> findByScopeAndOwnerId(ReportScope scope, Long ownerId);
+}
@@ -0,0 +1,14 @@
+package edu.cit.spedermath.repository;
+
+import edu.cit.spedermath.model.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    @Query("SELECT b.data FROM MediaBlob b WHERE b.contentHash = :hash")
+    Optional<byte[]> findDataByHash(@Param("hash") String hash);
+}
@@ -1,49 +1,203 @@
 package edu.cit.spedermath.repository;
 
+import edu.cit.spedermath.dto.AssessmentAttemptRow;
+import edu.cit.spedermath.dto.AttemptHistoryDTO;
 import edu.cit.spedermath.enums.LessonType;
 import edu.cit.spedermath.model.StudentAttempt;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface StudentAttemptRepository extends JpaRepository<StudentAttempt, Long> {
 
-    List<StudentAttempt> findByStudent_StudentIDOrderByAttemptedAtDesc(Long studentId);
-
-    List<StudentAttempt> findByStudent_StudentIDAndLesson_LessonIDOrderByAttemptedAtDesc(Long studentId, Long lessonId);
+    /** Newest attempts for one student; served by idx_attempt_student_time. */
+    @Query("""
+        SELECT a
+        FROM StudentAttempt a
+        JOIN FETCH a.lesson
+        WHERE a.student.studentID = :studentId
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<StudentAttempt> findRecentAttempts(@Param("studentId") Long studentId, Pageable pageable);
 
+    /**
+     * Keyset page: attempts strictly older than the (attemptedAt, attemptId) of the last row already seen.
+     * Unlike OFFSET this stays one index range scan however deep the client pages.
+     */
     @Query("""
         SELECT a
         FROM StudentAttempt a
-        ORDER BY a.attemptedAt DESC
+        JOIN FETCH a.lesson
+        WHERE a.student.studentID = :studentId
+        AND (a.attemptedAt, a.attemptId) < (:afterAttemptedAt, :afterAttemptId)
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<StudentAttempt> findRecentAttemptsBefore(
+            @Param("studentId") Long studentId,
+            @Param("afterAttemptedAt") LocalDateTime afterAttemptedAt,
+            @Param("afterAttemptId") Long afterAttemptId,
+            Pageable pageable
+    );
+
+    /* ---- History pages as DTO rows, keyset on (attemptedAt, attemptId); pass Limit.of(size) ---- */
+
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AttemptHistoryDTO(
+            a.attemptId, l.lessonID, l.title, a.score, a.status, a.timeSpentSeconds, a.attemptedAt,
+            l.lessonType, l.lessonOrder, l.max_score, l.unlockThreshold
+        )
+        FROM StudentAttempt a
+        JOIN a.lesson l
+        WHERE a.student.studentID = :studentId
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
     """)
-    List<StudentAttempt> findRecentAttempts(Long studentId, Pageable pageable);
+    List<AttemptHistoryDTO> findHistory(@Param("studentId") Long studentId, Limit limit);
 
-        @Query("""
-            SELECT a FROM StudentAttempt a
-            JOIN FETCH a.lesson
-            WHERE a.student.studentID = :studentId
-            AND (:type IS NULL OR a.lesson.lessonType = :type)
-            ORDER BY a.attemptedAt DESC
-        """)
-        List<StudentAttempt> findRecentByStudentAndType(
-                @Param("studentId") Long studentId,
-                @Param("type") LessonType type,
-                Pageable pageable
-        );
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AttemptHistoryDTO(
+            a.attemptId, l.lessonID, l.title, a.score, a.status, a.timeSpentSeconds, a.attemptedAt,
+            l.lessonType, l.lessonOrder, l.max_score, l.unlockThreshold
+        )
+        FROM StudentAttempt a
+        JOIN a.lesson l
+        WHERE a.student.studentID = :studentId
+        AND (a.attemptedAt, a.attemptId) < (:afterAttemptedAt, :afterAttemptId)
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    List<AttemptHistoryDTO> findHistoryBefore(
+            @Param("studentId") Long studentId,
+            @Param("afterAttemptedAt") LocalDateTime afterAttemptedAt,
+            @Param("afterAttemptId") Long afterAttemptId,
+            Limit limit
+    );
+
+    /** Also the "latest attempt" lookup with {@code Limit.of(1)}; served by idx_attempt_student_lesson_time. */
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AttemptHistoryDTO(
+            a.attemptId, l.lessonID, l.title, a.score, a.status, a.timeSpentSeconds, a.attemptedAt,
+            l.lessonType, l.lessonOrder, l.max_score, l.unlockThreshold
+        )
+        FROM StudentAttempt a
+        JOIN a.lesson l
+        WHERE a.student.studentID = :studentId
+        AND l.lessonID = :lessonId
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    List<AttemptHistoryDTO> findLessonHistory(
+            @Param("studentId") Long studentId,
+            @Param("lessonId") Long lessonId,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AttemptHistoryDTO(
+            a.attemptId, l.lessonID, l.title, a.score, a.status, a.timeSpentSeconds, a.attemptedAt,
+            l.lessonType, l.lessonOrder, l.max_score, l.unlockThreshold
+        )
+        FROM StudentAttempt a
+        JOIN a.lesson l
+        WHERE a.student.studentID = :studentId
+        AND l.lessonID = :lessonId
+        AND (a.attemptedAt, a.attemptId) < (:afterAttemptedAt, :afterAttemptId)
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    List<AttemptHistoryDTO> findLessonHistoryBefore(
+            @Param("studentId") Long studentId,
+            @Param("lessonId") Long lessonId,
+            @Param("afterAttemptedAt") LocalDateTime afterAttemptedAt,
+            @Param("afterAttemptId") Long afterAttemptId,
+            Limit limit
+    );
+
+    /** Recent feed filtered by lesson type ({@code type == null} means all types). */
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AttemptHistoryDTO(
+            a.attemptId, l.lessonID, l.title, a.score, a.status, a.timeSpentSeconds, a.attemptedAt,
+            l.lessonType, l.lessonOrder, l.max_score, l.unlockThreshold
+        )
+        FROM StudentAttempt a
+        JOIN a.lesson l
+        WHERE a.student.studentID = :studentId
+        AND (:type IS NULL OR l.lessonType = :type)
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
+    """)
+    List<AttemptHistoryDTO> findRecentByStudentAndType(
+            @Param("studentId") Long studentId,
+            @Param("type") LessonType type,
+            Limit limit
+    );
 
     @Query("""
         SELECT a FROM StudentAttempt a
         JOIN FETCH a.lesson
         WHERE a.student.studentID = :studentId
         AND (:type IS NULL OR a.lesson.lessonType = :type)
-        ORDER BY a.attemptedAt DESC
+        ORDER BY a.attemptedAt DESC, a.attemptId DESC
     """)
     List<StudentAttempt> findRecentAttemptsByStudentId(
         @Param("studentId") Long studentId,
-        @Param("type") String type
+        @Param("type") LessonType type
     );
+
+    /* ---- Assessment reports (AssessmentReportService) ---- */
+
+    @Query("""
+        SELECT MAX(a.attemptId) FROM StudentAttempt a
+        WHERE a.student.studentID = :studentId
+        AND a.lesson.lessonType = edu.cit.spedermath.enums.LessonType.ASSESSMENT
+    """)
+    Long findLatestAssessmentAttemptIdByStudent(@Param("studentId") Long studentId);
+
+    @Query("""
+        SELECT MAX(a.attemptId) FROM StudentAttempt a
+        WHERE a.student.teacher.teacherID = :teacherId
+        AND a.lesson.lessonType = edu.cit.spedermath.enums.LessonType.ASSESSMENT
+    """)
+    Long findLatestAssessmentAttemptIdByTeacher(@Param("teacherId") Long teacherId);
+
+    /** Oldest first within each (student, lesson), so the last row of a group is the latest attempt. */
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AssessmentAttemptRow(
+            a.student.studentID, a.lesson.lessonID, a.score, a.timeSpentSeconds, a.attemptId
+        )
+        FROM StudentAttempt a
+        WHERE a.student.studentID = :studentId
+        AND a.lesson.lessonType = edu.cit.spedermath.enums.LessonType.ASSESSMENT
+        ORDER BY a.lesson.lessonID, a.attemptedAt, a.attemptId
+    """)
+    List<AssessmentAttemptRow> findAssessmentRowsByStudent(@Param("studentId") Long studentId);
+
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.AssessmentAttemptRow(
+            a.student.studentID, a.lesson.lessonID, a.score, a.timeSpentSeconds, a.attemptId
+        )
+        FROM StudentAttempt a
+        WHERE a.student.teacher.teacherID = :teacherId
+        AND a.lesson.lessonType = edu.cit.spedermath.enums.LessonType.ASSESSMENT
+        ORDER BY a.student.studentID, a.lesson.lessonID, a.attemptedAt, a.attemptId
+    """)
+    List<AssessmentAttemptRow> findAssessmentRowsByTeacher(@Param("teacherId") Long teacherId);
+
+    /**
+     * Students whose assessment activity since {@code from} ended no later than {@code to}: their
+     * assessment window has closed. Served by idx_attempt_time.
+     */
+    @Query("""
+        SELECT a.student.studentID FROM StudentAttempt a
+        WHERE a.attemptedAt > :from
+        AND a.lesson.lessonType = edu.cit.spedermath.enums.LessonType.ASSESSMENT
+        GROUP BY a.student.studentID
+        HAVING MAX(a.attemptedAt) <= :to
+    """)
+    List<Long> findStudentsWithAssessmentWindowClosed(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,20 @@
+package edu.cit.spedermath.repository;
+
+import edu.cit.spedermath.model.StudentMedia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface StudentMediaRepository extends JpaRepository<StudentMedia, Long> {
+    Optional<StudentMedia> findByStudentId(Long studentId);
+
+    @Query("SELECT m.contentHash FROM StudentMedia m WHERE m.studentId = :studentId")
+    Optional<String> findContentHashByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("DELETE FROM StudentMedia m WHERE m.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+}
@@ -1,38 +1,62 @@
 package edu.cit.spedermath.repository;
 
-import edu.cit.spedermath.dto.LessonStatsDTO;
+import edu.cit.spedermath.dto.LessonStatsTotals;
+import edu.cit.spedermath.dto.StudentProgressDTO;
 import edu.cit.spedermath.model.StudentProgress;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface StudentProgressRepository extends JpaRepository<StudentProgress, Long> {
 
-    List<StudentProgress> findByStudent_StudentID(Long studentId);
     Optional<StudentProgress> findByStudent_StudentIDAndLesson_LessonID(Long studentId, Long lessonId);
+    List<StudentProgress> findByStudent_StudentIDAndLesson_LessonIDIn(Long studentId, Collection<Long> lessonIds);
 
+    @EntityGraph(StudentProgress.WITH_STUDENT)
+    Optional<StudentProgress> findWithStudentByProgressID(Long progressId);
+
+    /** The student's progress rows as DTOs; student_progress only, lesson id comes from the FK. */
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.StudentProgressDTO(
+            sp.progressID, sp.score, sp.status, sp.lastUpdated, sp.unlocked, sp.timeSpentInSeconds, sp.lesson.lessonID)
+        FROM StudentProgress sp
+        WHERE sp.student.studentID = :studentId
+    """)
+    List<StudentProgressDTO> findDTOsByStudentId(@Param("studentId") Long studentId);
+
+    @Query("""
+        SELECT new edu.cit.spedermath.dto.StudentProgressDTO(
+            sp.progressID, sp.score, sp.status, sp.lastUpdated, sp.unlocked, sp.timeSpentInSeconds, sp.lesson.lessonID)
+        FROM StudentProgress sp
+        WHERE sp.student.studentID = :studentId AND sp.lesson.lessonID = :lessonId
+    """)
+    Optional<StudentProgressDTO> findDTOByStudentIdAndLessonId(@Param("studentId") Long studentId,
+                                                              @Param("lessonId") Long lessonId);
+
+    /** Seed for LessonStatsAggregator: one row per lesson, sums only (no lesson join). */
     @Query("""
-        SELECT new edu.cit.spedermath.dto.LessonStatsDTO(
+        SELECT new edu.cit.spedermath.dto.LessonStatsTotals(
             sp.lesson.lessonID,
-            sp.lesson.title,
-            AVG(sp.score),
-            AVG(sp.timeSpentInSeconds),
+            COUNT(sp),
+            SUM(sp.score),
+            SUM(sp.timeSpentInSeconds),
+            COUNT(sp.timeSpentInSeconds),
             SUM(sp.retakesCount),
             SUM(CASE WHEN sp.unlocked THEN 1 ELSE 0 END),
             SUM(CASE WHEN sp.unlocked = false THEN 1 ELSE 0 END),
             SUM(CASE WHEN sp.status = 'COMPLETED' THEN 1 ELSE 0 END),
             SUM(CASE WHEN sp.status = 'IN_PROGRESS' THEN 1 ELSE 0 END),
             SUM(CASE WHEN sp.status = 'NOT_STARTED' THEN 1 ELSE 0 END),
-            SUM(CASE WHEN sp.status = 'FAILED' THEN 1 ELSE 0 END),
-            sp.lesson.lessonType,
-            sp.lesson.max_score
+            SUM(CASE WHEN sp.status = 'FAILED' THEN 1 ELSE 0 END)
         )
         FROM StudentProgress sp
         WHERE sp.student.teacher.teacherID = :teacherId
-        GROUP BY sp.lesson.lessonID, sp.lesson.title, sp.lesson.lessonType, sp.lesson.max_score
+        GROUP BY sp.lesson.lessonID
     """)
-    List<LessonStatsDTO> getLessonStatisticsByTeacherId(@Param("teacherId") Long teacherId);
+    List<LessonStatsTotals> getLessonTotalsByTeacherId(@Param("teacherId") Long teacherId);
 }
\ No newline at end of file
@@ -1,14 +1,47 @@
 package edu.cit.spedermath.repository;
 
+import edu.cit.spedermath.dto.StudentSummaryDTO;
 import edu.cit.spedermath.model.Student;
 import edu.cit.spedermath.model.Teacher;
 
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
     Optional<Student> findByUsername(String username);
     boolean existsByPassword(String password);
+    // read-only: callers swap in decrypted passwords for the response, which must never be flushed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Student> findByTeacher(Teacher teacher);
+
+    /** Roster page without the password; only the picture's hash, if any (student_media is not read). */
+    @Query(value = """
+        SELECT new edu.cit.spedermath.dto.StudentSummaryDTO(
+            s.studentID, s.fname, s.lname, s.username, s.birthdate, s.createdAt,
+            s.profileMediaId, s.profilePictureHash
+        )
+        FROM Student s
+        WHERE s.teacher.teacherID = :teacherId
+    """, countQuery = """
+        SELECT COUNT(s) FROM Student s WHERE s.teacher.teacherID = :teacherId
+    """)
+    Page<StudentSummaryDTO> findRosterByTeacherId(@Param("teacherId") Long teacherId, Pageable pageable);
+
+    @Query("SELECT s.teacher.teacherID FROM Student s WHERE s.studentID = :studentId")
+    Optional<Long> findTeacherIdByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT DISTINCT s.teacher.teacherID FROM Student s WHERE s.studentID IN :studentIds")
+    List<Long> findTeacherIdsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT s.password FROM Student s WHERE s.studentID = :studentId AND s.teacher.teacherID = :teacherId")
+    Optional<String> findPasswordByIdAndTeacherId(@Param("studentId") Long studentId, @Param("teacherId") Long teacherId);
 }
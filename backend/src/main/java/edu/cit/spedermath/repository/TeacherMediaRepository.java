@@ -0,0 +1,10 @@
+package edu.cit.spedermath.repository;
+
+import edu.cit.spedermath.model.TeacherMedia;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface TeacherMediaRepository extends JpaRepository<TeacherMedia, Long> {
+    Optional<TeacherMedia> findByTeacherId(Long teacherId);
+}
@@ -3,8 +3,13 @@ package edu.cit.spedermath.repository;
 import edu.cit.spedermath.model.Teacher;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     Optional<Teacher> findByEmail(String email);
     Optional<Teacher> findByName(String name);
+
+    @Query("SELECT t.photoHash FROM Teacher t WHERE t.teacherID = :id")
+    Optional<String> findPhotoHashById(@Param("id") Long id);
 }
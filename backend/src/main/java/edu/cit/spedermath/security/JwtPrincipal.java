@@ -0,0 +1,50 @@
+package edu.cit.spedermath.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Claims of a verified JWT, parsed once per request by {@code JwtAuthenticationFilter}
+ * and kept as a request attribute so controllers don't re-verify the token.
+ */
+public record JwtPrincipal(String subject, String role, Long teacherId, Long studentId, Date expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = JwtPrincipal.class.getName();
+
+    public static JwtPrincipal from(Claims claims) {
+        Object role = claims.get("role");
+        return new JwtPrincipal(
+                claims.getSubject(),
+                role == null ? null : String.valueOf(role),
+                teacherIdOf(claims),
+                studentIdOf(claims),
+                claims.getExpiration()
+        );
+    }
+
+    /** Teachers: "tid", with legacy "teacherId"/"id" fallbacks */
+    private static Long teacherIdOf(Claims claims) {
+        Object id = claims.get("tid");
+        if (id == null) id = claims.get("teacherId");
+        if (id == null) id = claims.get("id");
+        return toLong(id);
+    }
+
+    /** Students: "sid", with legacy "studentId" fallback */
+    private static Long studentIdOf(Claims claims) {
+        Object sid = claims.get("sid");
+        if (sid == null) sid = claims.get("studentId");
+        return toLong(sid);
+    }
+
+    private static Long toLong(Object value) {
+        if (value == null) return null;
+        if (value instanceof Number n) return n.longValue();
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
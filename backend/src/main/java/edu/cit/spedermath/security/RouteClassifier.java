@@ -0,0 +1,137 @@
+package edu.cit.spedermath.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled route table used by {@code JwtAuthenticationFilter}: decides in a single trie walk
+ * whether a path is public and, if not, which JWT id becomes the principal.
+ * {@link #PUBLIC_PATTERNS} is also what {@code SecurityConfig} permits, so the two can't drift.
+ * Patterns use Ant syntax limited to whole segments: literal, {@code *} (one segment), trailing {@code **}.
+ */
+@Component
+public class RouteClassifier {
+
+    public enum Access {
+        /** No token needed */
+        PUBLIC,
+        /** Principal = studentId */
+        STUDENT,
+        /** Principal = teacherId */
+        TEACHER,
+        /** Principal = teacherId, else studentId */
+        EITHER,
+        /** Authenticated by SecurityConfig, but the filter extracts no principal */
+        NONE
+    }
+
+    public static final List<String> PUBLIC_PATTERNS = List.of(
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/v3/api-docs/**",
+            "/api/teachers/login",
+            "/api/teachers/register",
+            "/api/students/student-login",
+            "/api/teachers/google-login",
+            "/api/lessons/**",
+            "/api/lesson-stats",
+            "/api/students/*/qr-token",
+            "/api/summarize",
+            "/public/**",
+            "/error",
+            "/api/debug/echo-auth",
+            "/api/teachers/*/photo"
+    );
+
+    /** Token-protected areas; more specific public patterns above take precedence. */
+    public static final Map<String, Access> PROTECTED_AREAS = Map.of(
+            "/api/student-progress/**", Access.STUDENT,
+            "/api/students/**", Access.EITHER,
+            "/api/teachers/**", Access.TEACHER,
+            "/api/attempts/**", Access.EITHER
+    );
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_REST = "**";
+
+    private static final class Node {
+        final Map<String, Node> literals = new HashMap<>();
+        Node anySegment;
+        Access anyRest;   // "**" hanging off this node (matches zero or more segments)
+        Access exact;     // a pattern ends exactly here
+    }
+
+    private final Node root = new Node();
+
+    public RouteClassifier() {
+        PUBLIC_PATTERNS.forEach(p -> add(p, Access.PUBLIC));
+        PROTECTED_AREAS.forEach(this::add);
+    }
+
+    public Access classify(String path) {
+        Access access = match(root, segments(path), 0);
+        return access != null ? access : Access.NONE;
+    }
+
+    public boolean isPublic(String path) {
+        return classify(path) == Access.PUBLIC;
+    }
+
+    /* ====================== Trie ====================== */
+
+    private void add(String pattern, Access access) {
+        String[] segs = segments(pattern);
+        Node node = root;
+        for (int i = 0; i < segs.length; i++) {
+            String seg = segs[i];
+            if (ANY_REST.equals(seg)) {
+                if (i != segs.length - 1) {
+                    throw new IllegalArgumentException("'**' only supported as last segment: " + pattern);
+                }
+                if (node.anyRest == null) node.anyRest = access;
+                return;
+            }
+            if (ANY_SEGMENT.equals(seg)) {
+                if (node.anySegment == null) node.anySegment = new Node();
+                node = node.anySegment;
+            } else {
+                node = node.literals.computeIfAbsent(seg, k -> new Node());
+            }
+        }
+        if (node.exact == null) node.exact = access;
+    }
+
+    /** Most specific wins: literal segment, then '*', then '**'. */
+    private static Access match(Node node, String[] segs, int i) {
+        if (i == segs.length) {
+            return node.exact != null ? node.exact : node.anyRest;
+        }
+        Node literal = node.literals.get(segs[i]);
+        if (literal != null) {
+            Access a = match(literal, segs, i + 1);
+            if (a != null) return a;
+        }
+        if (node.anySegment != null) {
+            Access a = match(node.anySegment, segs, i + 1);
+            if (a != null) return a;
+        }
+        return node.anyRest;
+    }
+
+    private static String[] segments(String path) {
+        if (path == null || path.isEmpty()) return new String[0];
+        List<String> segs = new ArrayList<>(8);
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) segs.add(path.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return segs.toArray(new String[0]);
+    }
+}
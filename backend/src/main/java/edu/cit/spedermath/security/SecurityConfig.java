@@ -1,6 +1,7 @@
 package edu.cit.spedermath.security;
 
 import edu.cit.spedermath.filter.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -38,27 +39,15 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
-                        // Public endpoints
-                        .requestMatchers(
-                                "/swagger-ui/**",
-                                "/swagger-ui.html",
-                                "/v3/api-docs/**",
-                                "/api/teachers/login",
-                                "/api/teachers/register",
-                                "/api/students/student-login",
-                                "/api/teachers/google-login",
-                                "/api/lessons/**",
-                                "/api/lesson-stats",
-                                "/api/students/*/qr-token",
-                                "/api/summarize",
-                                "/public/**",
-                                "/error",
-                                "/api/debug/echo-auth",
-                                "/api/teachers/*/photo"
-                        ).permitAll()
+                        // Re-dispatch of a DeferredResult/SseEmitter: the original request was already authorized,
+                        // and no token filter runs again to restore the (stateless) principal
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                        // Public endpoints (shared with JwtAuthenticationFilter)
+                        .requestMatchers(RouteClassifier.PUBLIC_PATTERNS.toArray(String[]::new)).permitAll()
 
                         // Protected endpoints
-                        .requestMatchers("/api/student-progress/**", "/api/students/**", "/api/attempts/**").authenticated()
+                        .requestMatchers(RouteClassifier.PROTECTED_AREAS.keySet().toArray(String[]::new)).authenticated()
 
                         // Anything else requires auth
                         .anyRequest().authenticated()
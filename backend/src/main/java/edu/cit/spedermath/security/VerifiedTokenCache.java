@@ -0,0 +1,83 @@
+package edu.cit.spedermath.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already-verified bearer tokens, so a student polling the API with the
+ * same JWT doesn't pay for an HMAC check on every call.
+ * Keyed by SHA-256 of the token (raw tokens are never stored); each entry expires at the token's "exp".
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private record Entry(JwtPrincipal principal, long expiresAtMillis) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxEntries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        FunctionCounter.builder("spedermath.jwt.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("spedermath.jwt.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("spedermath.jwt.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /** Cached principal for this token, or verify it (throws if invalid/expired) and remember the result. */
+    public JwtPrincipal getOrVerify(String token, Function<String, JwtPrincipal> verifier) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached.principal();
+            }
+            entries.remove(key, cached);
+        }
+
+        misses.increment();
+        JwtPrincipal principal = verifier.apply(token);
+        if (principal.expiresAt() != null) {
+            if (entries.size() >= maxEntries) evictExpired(now);
+            // still full -> serve uncached rather than grow unbounded
+            if (entries.size() < maxEntries) {
+                entries.put(key, new Entry(principal, principal.expiresAt().getTime()));
+            }
+        }
+        return principal;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public int size() { return entries.size(); }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(e -> e.expiresAtMillis() <= now);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
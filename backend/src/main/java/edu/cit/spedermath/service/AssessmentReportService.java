@@ -0,0 +1,412 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.dto.AssessmentAttemptRow;
+import edu.cit.spedermath.dto.AssessmentReportDTO;
+import edu.cit.spedermath.dto.SummarizeReq;
+import edu.cit.spedermath.enums.ReportScope;
+import edu.cit.spedermath.model.AssessmentReport;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.repository.AssessmentReportRepository;
+import edu.cit.spedermath.repository.StudentAttemptRepository;
+import edu.cit.spedermath.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * AI assessment summaries for one student or a teacher's whole class, with the prompt built here from
+ * attempt data instead of being assembled and uploaded by the browser. The prompt is one line of
+ * aggregates per assessment, in lesson order, so the same data always gives the same prompt. A stored
+ * report is reused until a newer assessment attempt exists (higher attemptId) or the lesson table changes
+ * (catalog etag); until then no LLM call is made.
+ * <p>
+ * A background sweep pre-generates the reports of students whose assessment window has closed, i.e. whose
+ * last assessment attempt is older than {@code app.assessment-report.window-idle}, and of their classes.
+ */
+@Service
+public class AssessmentReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssessmentReportService.class);
+
+    static final String NO_ATTEMPTS = "No assessment attempts.";
+
+    /** Output budget the assessment modal always asked for. */
+    private static final int MAX_WORDS = 900;
+
+    private record Prompt(String text, Long latestAttemptId) {}
+
+    /** One (student, lesson) history, oldest attempt first. */
+    private record History(int attempts, int last, Integer previous, int best, double avgScore, Double avgTime) {
+
+        static History of(List<AssessmentAttemptRow> rows) {
+            int best = 0;
+            long scoreSum = 0, timeSum = 0, timeCount = 0;
+            for (AssessmentAttemptRow r : rows) {
+                int score = r.score() != null ? r.score() : 0;
+                best = Math.max(best, score);
+                scoreSum += score;
+                if (r.timeSpentSeconds() != null) {
+                    timeSum += r.timeSpentSeconds();
+                    timeCount++;
+                }
+            }
+            Integer last = rows.get(rows.size() - 1).score();
+            Integer previous = rows.size() > 1 ? rows.get(rows.size() - 2).score() : null;
+            return new History(rows.size(), last != null ? last : 0, previous, best,
+                    (double) scoreSum / rows.size(), timeCount > 0 ? (double) timeSum / timeCount : null);
+        }
+
+        String trend() {
+            if (previous == null) return "no-trend";
+            return last > previous ? "up" : last < previous ? "down" : "flat";
+        }
+    }
+
+    private final StudentAttemptRepository attemptRepo;
+    private final StudentRepository studentRepo;
+    private final AssessmentReportRepository reportRepo;
+    private final LessonCatalog lessonCatalog;
+    private final SummarizerService summarizer;
+    private final TransactionTemplate newTx;
+
+    private final boolean pregenerate;
+    private final Duration windowIdle;
+    private final Duration sweepInterval;
+    private final Duration lookback;
+    private ScheduledExecutorService scheduler;
+    /** Upper bound of the previous sweep; null until the first one (which looks back {@link #lookback}). */
+    private LocalDateTime sweptUntil;
+
+    private final Counter generated;
+    private final Counter reused;
+
+    public AssessmentReportService(StudentAttemptRepository attemptRepo,
+                                   StudentRepository studentRepo,
+                                   AssessmentReportRepository reportRepo,
+                                   LessonCatalog lessonCatalog,
+                                   SummarizerService summarizer,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.assessment-report.pregenerate:true}") boolean pregenerate,
+                                   @Value("${app.assessment-report.window-idle:PT30M}") Duration windowIdle,
+                                   @Value("${app.assessment-report.sweep-interval:PT5M}") Duration sweepInterval,
+                                   @Value("${app.assessment-report.lookback:PT24H}") Duration lookback) {
+        this.attemptRepo = attemptRepo;
+        this.studentRepo = studentRepo;
+        this.reportRepo = reportRepo;
+        this.lessonCatalog = lessonCatalog;
+        this.summarizer = summarizer;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pregenerate = pregenerate;
+        this.windowIdle = windowIdle;
+        this.sweepInterval = sweepInterval;
+        this.lookback = lookback;
+        this.generated = Counter.builder("spedermath.assessment-report.generated").register(meterRegistry);
+        this.reused = Counter.builder("spedermath.assessment-report.reused").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!pregenerate) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "assessment-report-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, sweepInterval.toMillis(), sweepInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /**
+     * The student's report; completes at once when the stored one is current, otherwise after the LLM call.
+     * Cancelling the returned future cancels the LLM call.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the summarizer queue is full
+     */
+    public CompletableFuture<AssessmentReportDTO> studentReport(Long studentId) {
+        Student student = studentRepo.findById(studentId)
+                .orElseThrow(() -> new RuntimeException("Student not found."));
+        return report(ReportScope.STUDENT, studentId,
+                () -> attemptRepo.findLatestAssessmentAttemptIdByStudent(studentId),
+                lessons -> {
+                    List<AssessmentAttemptRow> rows = attemptRepo.findAssessmentRowsByStudent(studentId);
+                    return new Prompt(studentPrompt(fullName(student), rows, lessons), latestAttemptId(rows));
+                });
+    }
+
+    /** Same as {@link #studentReport}, over every student of the teacher. */
+    public CompletableFuture<AssessmentReportDTO> classReport(Long teacherId) {
+        return report(ReportScope.CLASS, teacherId,
+                () -> attemptRepo.findLatestAssessmentAttemptIdByTeacher(teacherId),
+                lessons -> {
+                    List<AssessmentAttemptRow> rows = attemptRepo.findAssessmentRowsByTeacher(teacherId);
+                    return new Prompt(classPrompt(rows, lessons), latestAttemptId(rows));
+                });
+    }
+
+    private CompletableFuture<AssessmentReportDTO> report(ReportScope scope, Long ownerId, Supplier<Long> latestAttemptId,
+                                                          Function<LessonCatalog.Snapshot, Prompt> buildPrompt) {
+        Long latest = latestAttemptId.get();
+        if (latest == null) {
+            return CompletableFuture.completedFuture(new AssessmentReportDTO(scope, ownerId, null, NO_ATTEMPTS, null));
+        }
+        LessonCatalog.Snapshot lessons = lessonCatalog.snapshot();
+        Optional<AssessmentReport> stored = reportRepo.findByScopeAndOwnerId(scope, ownerId);
+        if (stored.isPresent() && latest.equals(stored.get().getLatestAttemptId())
+                && lessons.etag().equals(stored.get().getLessonsEtag())) {
+            reused.increment();
+            return CompletableFuture.completedFuture(toDto(stored.get()));
+        }
+        if (!summarizer.isConfigured()) {
+            return CompletableFuture.completedFuture(new AssessmentReportDTO(scope, ownerId, latest, SummarizerService.MISSING_KEY, null));
+        }
+
+        // rows may already include attempts newer than `latest`; the prompt is keyed by what it was built from
+        Prompt prompt = buildPrompt.apply(lessons);
+        if (prompt.latestAttemptId() == null) { // attempts deleted in between
+            return CompletableFuture.completedFuture(new AssessmentReportDTO(scope, ownerId, null, NO_ATTEMPTS, null));
+        }
+        CompletableFuture<String> upstream =
+                summarizer.summarize(SummarizerService.Request.of(new SummarizeReq(prompt.text(), true, MAX_WORDS)));
+        CompletableFuture<AssessmentReportDTO> mapped = upstream.thenApply(summary -> {
+            if (!SummarizerService.isSummary(summary)) {
+                return new AssessmentReportDTO(scope, ownerId, prompt.latestAttemptId(), summary, null);
+            }
+            generated.increment();
+            AssessmentReport report = new AssessmentReport(scope, ownerId);
+            report.setLatestAttemptId(prompt.latestAttemptId());
+            report.setLessonsEtag(lessons.etag());
+            report.setSummary(summary);
+            report.setGeneratedAt(LocalDateTime.now());
+            store(report);
+            return toDto(report);
+        });
+        // cancelling a dependent stage does not reach its source; pass it on so the LLM call and its permit are released
+        mapped.whenComplete((dto, e) -> {
+            if (mapped.isCancelled()) upstream.cancel(true);
+        });
+        return mapped;
+    }
+
+    private void store(AssessmentReport report) {
+        try {
+            newTx.executeWithoutResult(status -> {
+                AssessmentReport row = reportRepo.findByScopeAndOwnerId(report.getScope(), report.getOwnerId())
+                        .orElseGet(() -> new AssessmentReport(report.getScope(), report.getOwnerId()));
+                if (row.getLatestAttemptId() != null && row.getLatestAttemptId() > report.getLatestAttemptId()) {
+                    return; // a report on newer data was stored meanwhile
+                }
+                row.setLatestAttemptId(report.getLatestAttemptId());
+                row.setLessonsEtag(report.getLessonsEtag());
+                row.setSummary(report.getSummary());
+                row.setGeneratedAt(report.getGeneratedAt());
+                reportRepo.save(row);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // first report for this owner stored concurrently; either one will do
+        }
+    }
+
+    private static AssessmentReportDTO toDto(AssessmentReport r) {
+        return new AssessmentReportDTO(r.getScope(), r.getOwnerId(), r.getLatestAttemptId(), r.getSummary(), r.getGeneratedAt());
+    }
+
+    // --- Pre-generation ---
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.warn("Assessment report sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /** Generates the missing or stale reports of students (and their classes) whose window closed since the last sweep. */
+    void sweep() {
+        if (!summarizer.isConfigured()) return;
+        LocalDateTime to = LocalDateTime.now().minus(windowIdle);
+        LocalDateTime from = sweptUntil != null ? sweptUntil : to.minus(lookback);
+        List<Long> studentIds = attemptRepo.findStudentsWithAssessmentWindowClosed(from, to);
+        // one at a time, so the sweep never holds more than one summarizer slot
+        for (Long studentId : studentIds) awaitQuietly(() -> studentReport(studentId));
+        if (!studentIds.isEmpty()) {
+            for (Long teacherId : studentRepo.findTeacherIdsByStudentIds(studentIds)) awaitQuietly(() -> classReport(teacherId));
+        }
+        sweptUntil = to;
+    }
+
+    private static void awaitQuietly(Supplier<CompletableFuture<AssessmentReportDTO>> report) {
+        try {
+            report.get().join();
+        } catch (Exception e) {
+            // the report is generated on demand instead
+            log.warn("Assessment report pre-generation failed: {}", e.getMessage());
+        }
+    }
+
+    // --- Prompts (deterministic: lesson order, integer aggregates) ---
+
+    static String studentPrompt(String fullName, List<AssessmentAttemptRow> rows, LessonCatalog.Snapshot lessons) {
+        Map<Long, List<AssessmentAttemptRow>> byLesson = groupBy(rows, AssessmentAttemptRow::lessonId);
+        List<String> parts = new ArrayList<>();
+        int n = 0;
+        for (Lesson lesson : lessons.ordered()) {
+            List<AssessmentAttemptRow> attempts = byLesson.get(lesson.getLessonID());
+            if (attempts == null) continue;
+            History h = History.of(attempts);
+            List<String> fields = new ArrayList<>(List.of(
+                    "Assessment " + (++n) + " \"" + lesson.getTitle() + "\"",
+                    "attempts=" + h.attempts(),
+                    "last=" + h.last(),
+                    "best=" + h.best(),
+                    "avgScore=" + Math.round(h.avgScore())));
+            if (h.avgTime() != null) fields.add("avgTimeSec=" + Math.round(h.avgTime()));
+            fields.add("maxScore=" + lesson.getMax_score());
+            fields.add("unlockThreshold=" + lesson.getUnlockThreshold());
+            lessons.next(lesson.getLessonID()).ifPresent(next -> fields.add("nextUnlockThreshold=" + next.getUnlockThreshold()));
+            fields.add("trend=" + h.trend());
+            parts.add(String.join(", ", fields));
+        }
+        String data = parts.isEmpty() ? NO_ATTEMPTS : String.join(" | ", parts)
+                + " | Overall: compare last/avg against NEXT lesson’s unlock threshold; use maxScore for ceiling context.";
+
+        return String.join("\n",
+                "You are an educational AI generating teacher-style insights for a SPED student's math assessments.",
+                "",
+                "Write exactly 3–5 concise bullet points (each 1–2 sentences max).",
+                "Tone: warm, professional, teacher-observational.",
+                "",
+                "Guidelines:",
+                "• Begin with one overall insight summarizing progress and growth areas.",
+                "• Then write one bullet per available number range based on the data.",
+                "• " + rangesGuideline(data),
+                "• Occasionally mention the student's name (\"" + fullName + "\").",
+                "• Focus on interpretation (growth, consistency, pacing, confidence), not on raw statistics.",
+                "• Combine related ideas to avoid redundancy.",
+                "• Keep total length around 90–120 words.",
+                "• Wrap the full response in <assessment>...</assessment>.",
+                "",
+                "STUDENT PERFORMANCE DATA:",
+                data,
+                "",
+                "RESPONSE:",
+                "<assessment>...</assessment>");
+    }
+
+    static String classPrompt(List<AssessmentAttemptRow> rows, LessonCatalog.Snapshot lessons) {
+        Map<Long, List<AssessmentAttemptRow>> byLesson = groupBy(rows, AssessmentAttemptRow::lessonId);
+        List<String> parts = new ArrayList<>();
+        int n = 0;
+        for (Lesson lesson : lessons.ordered()) {
+            List<AssessmentAttemptRow> attempts = byLesson.get(lesson.getLessonID());
+            if (attempts == null) continue;
+            Optional<Lesson> next = lessons.next(lesson.getLessonID());
+            int students = 0, improving = 0, declining = 0, reachedNext = 0;
+            long lastSum = 0, bestSum = 0;
+            double timeSum = 0;
+            int timeCount = 0;
+            for (List<AssessmentAttemptRow> history : groupBy(attempts, AssessmentAttemptRow::studentId).values()) {
+                History h = History.of(history);
+                students++;
+                lastSum += h.last();
+                bestSum += h.best();
+                if (h.avgTime() != null) {
+                    timeSum += h.avgTime();
+                    timeCount++;
+                }
+                if (h.trend().equals("up")) improving++;
+                if (h.trend().equals("down")) declining++;
+                if (next.isPresent() && h.last() >= next.get().getUnlockThreshold()) reachedNext++;
+            }
+            List<String> fields = new ArrayList<>(List.of(
+                    "Assessment " + (++n) + " \"" + lesson.getTitle() + "\"",
+                    "students=" + students,
+                    "attempts=" + attempts.size(),
+                    "avgLast=" + Math.round((double) lastSum / students),
+                    "avgBest=" + Math.round((double) bestSum / students)));
+            if (timeCount > 0) fields.add("avgTimeSec=" + Math.round(timeSum / timeCount));
+            fields.add("maxScore=" + lesson.getMax_score());
+            fields.add("unlockThreshold=" + lesson.getUnlockThreshold());
+            if (next.isPresent()) fields.add("reachedNextUnlockThreshold=" + reachedNext + "/" + students);
+            fields.add("improving=" + improving);
+            fields.add("declining=" + declining);
+            parts.add(String.join(", ", fields));
+        }
+        String data = parts.isEmpty() ? NO_ATTEMPTS : String.join(" | ", parts);
+
+        return String.join("\n",
+                "You are an educational AI generating teacher-style insights for a SPED class's math assessments.",
+                "",
+                "Write exactly 3–5 concise bullet points (each 1–2 sentences max).",
+                "Tone: warm, professional, teacher-observational.",
+                "",
+                "Guidelines:",
+                "• Begin with one overall insight about the class's progress and growth areas.",
+                "• Then write one bullet per assessment where the data shows a clear pattern.",
+                "• Do not name or single out individual students.",
+                "• Focus on interpretation (growth, consistency, pacing, readiness for the next lesson), not on raw statistics.",
+                "• Keep total length around 90–120 words.",
+                "• Wrap the full response in <assessment>...</assessment>.",
+                "",
+                "CLASS PERFORMANCE DATA:",
+                data,
+                "",
+                "RESPONSE:",
+                "<assessment>...</assessment>");
+    }
+
+    /** Number ranges the games cover, as the assessment modal detected them. */
+    private static String rangesGuideline(String data) {
+        List<String> ranges = new ArrayList<>();
+        if (data.matches("(?s).*(1[-–]3|(?i:NumberMaze)).*")) ranges.add("1–3");
+        if (data.matches("(?s).*(1[-–]5|(?i:NumberDrop)).*")) ranges.add("1–5");
+        if (data.matches("(?s).*(1[-–]7|(?i:Feed\\s*Munchie)).*")) ranges.add("1–7");
+        return ranges.isEmpty()
+                ? "If no specific range is found, write a short overall summary only."
+                : "Focus only on these number ranges present in the data: " + String.join(", ", ranges)
+                        + ". Do not invent or mention any other ranges.";
+    }
+
+    private static String fullName(Student s) {
+        String name = ((s.getFName() != null ? s.getFName() : "") + " " + (s.getLName() != null ? s.getLName() : "")).trim();
+        if (!name.isEmpty()) return name;
+        return s.getUsername() != null ? "@" + s.getUsername() : "The student";
+    }
+
+    private static Long latestAttemptId(List<AssessmentAttemptRow> rows) {
+        return rows.stream().map(AssessmentAttemptRow::attemptId).max(Long::compare).orElse(null);
+    }
+
+    private static <K> Map<K, List<AssessmentAttemptRow>> groupBy(List<AssessmentAttemptRow> rows,
+                                                                  Function<AssessmentAttemptRow, K> key) {
+        Map<K, List<AssessmentAttemptRow>> groups = new LinkedHashMap<>();
+        for (AssessmentAttemptRow r : rows) groups.computeIfAbsent(key.apply(r), k -> new ArrayList<>()).add(r);
+        return groups;
+    }
+}
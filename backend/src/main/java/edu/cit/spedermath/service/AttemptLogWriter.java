@@ -0,0 +1,353 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.enums.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Owns the student_attempt INSERT. Synchronous callers use {@link #insert}; with
+ * {@code app.attempt-log.write-behind=true}, {@link #offer} queues rows for a background thread that
+ * writes them in JDBC batches, so /submit no longer waits on a second commit.
+ * <p>
+ * Rows the database cannot take right now (it is unreachable, or rows are still queued at shutdown) are
+ * appended to {@code app.attempt-log.spill-file}. The spill file is replayed at startup, whether or not
+ * write-behind is on, and again every {@code app.attempt-log.spill-retry-interval} until it is empty.
+ * Rows the database rejects on their own (e.g. a foreign key to a deleted student) are split out of
+ * their batch and go to {@code app.attempt-log.dead-letter-file}, so they never hold up the good rows.
+ * A hard kill can still lose whatever was queued, i.e. at most one flush interval of attempts.
+ */
+@Component
+public class AttemptLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AttemptLogWriter.class);
+
+    private static final String INSERT_ATTEMPT_SQL = """
+        INSERT INTO student_attempt (student_id, lesson_id, score, status, time_spent_seconds, attempted_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+    """;
+
+    /** One student_attempt row, by id only so it can outlive the request's persistence context. */
+    public record Row(Long studentId, Long lessonId, Integer score, Status status,
+                      Integer timeSpentSeconds, LocalDateTime attemptedAt) {
+
+        String toSpillLine() {
+            return studentId + "\t" + lessonId + "\t" + score + "\t" + status + "\t"
+                    + (timeSpentSeconds != null ? timeSpentSeconds : "") + "\t" + attemptedAt;
+        }
+
+        static Row fromSpillLine(String line) {
+            String[] f = line.split("\t", -1);
+            return new Row(Long.valueOf(f[0]), Long.valueOf(f[1]), Integer.valueOf(f[2]), Status.valueOf(f[3]),
+                    f[4].isEmpty() ? null : Integer.valueOf(f[4]), LocalDateTime.parse(f[5]));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Path spillFile;
+    private final Path deadLetterFile;
+    private final Duration spillRetryInterval;
+    private final BlockingQueue<Row> queue;
+
+    private final Timer flushTimer;
+    private final Counter syncFallbacks;
+    private final Counter spilled;
+    private final Counter deadLettered;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    // offers hold the read lock across check-and-enqueue; stop() takes the write lock to close the queue
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+    private Thread worker;
+
+    public AttemptLogWriter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.attempt-log.write-behind:false}") boolean writeBehind,
+                            @Value("${app.attempt-log.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.attempt-log.batch-size:200}") int batchSize,
+                            @Value("${app.attempt-log.flush-interval:PT0.5S}") Duration flushInterval,
+                            @Value("${app.attempt-log.spill-file:attempt-log.spill}") Path spillFile,
+                            @Value("${app.attempt-log.dead-letter-file:attempt-log.dead}") Path deadLetterFile,
+                            @Value("${app.attempt-log.spill-retry-interval:PT1M}") Duration spillRetryInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.writeBehind = writeBehind;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.spillFile = spillFile;
+        this.deadLetterFile = deadLetterFile;
+        this.spillRetryInterval = spillRetryInterval;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("spedermath.attempts.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        flushTimer = Timer.builder("spedermath.attempts.flush").register(meterRegistry);
+        syncFallbacks = Counter.builder("spedermath.attempts.sync-fallbacks").register(meterRegistry);
+        spilled = Counter.builder("spedermath.attempts.spilled").register(meterRegistry);
+        deadLettered = Counter.builder("spedermath.attempts.dead-lettered").register(meterRegistry);
+        dropped = Counter.builder("spedermath.attempts.dropped").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (writeBehind) {
+            running = true;
+            worker = new Thread(this::drainLoop, "attempt-log-writer");
+        } else if (Files.exists(spillFile)) {
+            worker = new Thread(this::replayUntilEmpty, "attempt-log-replay"); // left over from a write-behind run
+        } else {
+            return;
+        }
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Stops accepting work, flushes what is queued, and spills anything the database refuses. */
+    @PreDestroy
+    public void stop() {
+        if (worker == null) return;
+        accepting.writeLock().lock(); // waits for offers already past the running check
+        try {
+            running = false;
+        } finally {
+            accepting.writeLock().unlock();
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Row> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flushOrSpill(rest);
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Queues a row for the background writer. Returns false when write-behind is off or the queue is
+     * full; the caller should then {@link #insert} synchronously.
+     */
+    public boolean offer(Row row) {
+        accepting.readLock().lock();
+        try {
+            if (!running) return false;
+            if (queue.offer(row)) return true;
+        } finally {
+            accepting.readLock().unlock();
+        }
+        syncFallbacks.increment();
+        return false;
+    }
+
+    /** Synchronous batch insert; joins the caller's transaction if there is one. */
+    public void insert(List<Row> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_ATTEMPT_SQL, rows, batchSize, (ps, r) -> {
+            ps.setLong(1, r.studentId());
+            ps.setLong(2, r.lessonId());
+            ps.setObject(3, r.score(), Types.INTEGER);
+            ps.setString(4, r.status() != null ? r.status().name() : null);
+            ps.setObject(5, r.timeSpentSeconds(), Types.INTEGER);
+            ps.setTimestamp(6, Timestamp.valueOf(r.attemptedAt()));
+        });
+    }
+
+    private void drainLoop() {
+        replaySpill();
+        long nextReplay = System.nanoTime() + spillRetryInterval.toNanos();
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (System.nanoTime() - nextReplay >= 0) {
+                    replaySpill();
+                    nextReplay = System.nanoTime() + spillRetryInterval.toNanos();
+                }
+                Row first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushOrSpill(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) flushOrSpill(batch);
+                return;
+            }
+        }
+    }
+
+    private void replayUntilEmpty() {
+        while (!replaySpill()) {
+            try {
+                Thread.sleep(spillRetryInterval.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void flushOrSpill(List<Row> batch) {
+        long start = System.nanoTime();
+        List<Row> rejected = new ArrayList<>();
+        List<Row> unwritten = write(batch, rejected);
+        deadLetter(rejected);
+        if (unwritten.isEmpty()) {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            spill(unwritten);
+        }
+    }
+
+    /**
+     * Inserts {@code rows}, one transaction per chunk so a spill never duplicates rows. A chunk that fails
+     * on a constraint is halved until the offending rows are isolated; those are added to {@code rejected}.
+     * Any other failure (database unreachable, timeouts) stops the write and returns the rows not yet written.
+     */
+    private List<Row> write(List<Row> rows, List<Row> rejected) {
+        Deque<List<Row>> chunks = new ArrayDeque<>();
+        if (!rows.isEmpty()) chunks.push(rows);
+        while (!chunks.isEmpty()) {
+            List<Row> chunk = chunks.pop();
+            try {
+                tx.executeWithoutResult(status -> insert(chunk));
+            } catch (DataIntegrityViolationException e) {
+                if (chunk.size() == 1) {
+                    log.warn("Attempt row rejected by the database, dead-lettering: {}", chunk.get(0), e);
+                    rejected.add(chunk.get(0));
+                } else {
+                    int mid = chunk.size() / 2;
+                    chunks.push(chunk.subList(mid, chunk.size()));
+                    chunks.push(chunk.subList(0, mid));
+                }
+            } catch (RuntimeException e) {
+                List<Row> unwritten = new ArrayList<>(chunk);
+                chunks.forEach(unwritten::addAll);
+                log.warn("Attempt log write failed, {} of {} rows not written", unwritten.size(), rows.size(), e);
+                return unwritten;
+            }
+        }
+        return List.of();
+    }
+
+    private synchronized void spill(List<Row> rows) {
+        if (append(spillFile, lines(rows))) {
+            spilled.increment(rows.size());
+        } else {
+            dropped.increment(rows.size());
+        }
+    }
+
+    private synchronized void deadLetter(List<Row> rows) {
+        if (rows.isEmpty()) return;
+        if (append(deadLetterFile, lines(rows))) {
+            deadLettered.increment(rows.size());
+        } else {
+            dropped.increment(rows.size());
+        }
+    }
+
+    private boolean append(Path file, List<String> lines) {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC)) {
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Could not write {} attempt rows to {}; they are lost", lines.size(), file, e);
+            return false;
+        }
+    }
+
+    private static List<String> lines(List<Row> rows) {
+        return rows.stream().map(Row::toSpillLine).toList();
+    }
+
+    /**
+     * Re-inserts spilled rows. Rejected rows move to the dead-letter file; rows that could not be written
+     * stay in the spill file for the next retry. Returns true once the spill file is gone.
+     */
+    synchronized boolean replaySpill() {
+        if (!Files.exists(spillFile)) return true;
+        List<Row> rows = new ArrayList<>();
+        List<String> corrupt = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(spillFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    rows.add(Row.fromSpillLine(line));
+                } catch (RuntimeException e) {
+                    corrupt.add(line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not read {}; leaving it in place", spillFile, e);
+            return false;
+        }
+
+        List<Row> rejected = new ArrayList<>();
+        List<Row> unwritten = write(rows, rejected);
+        if (!rows.isEmpty() && unwritten.size() == rows.size()) return false; // nothing written, keep the file as is
+        deadLetter(rejected);
+        if (!corrupt.isEmpty()) {
+            log.warn("Dead-lettering {} unreadable lines from {}", corrupt.size(), spillFile);
+            if (append(deadLetterFile, corrupt)) deadLettered.increment(corrupt.size());
+            else dropped.increment(corrupt.size());
+        }
+        try {
+            if (unwritten.isEmpty()) {
+                Files.delete(spillFile);
+            } else {
+                Path tmp = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+                Files.write(tmp, lines(unwritten), StandardCharsets.UTF_8);
+                Files.move(tmp, spillFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.error("Replayed rows from {} but could not update it; they may be inserted again", spillFile, e);
+            return false;
+        }
+        log.info("Replayed {} spilled attempt rows from {} ({} dead-lettered, {} left)",
+                rows.size() - rejected.size() - unwritten.size(), spillFile, rejected.size() + corrupt.size(), unwritten.size());
+        return unwritten.isEmpty();
+    }
+}
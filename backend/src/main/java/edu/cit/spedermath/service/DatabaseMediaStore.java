@@ -0,0 +1,53 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.model.MediaBlob;
+import edu.cit.spedermath.repository.MediaBlobRepository;
+import edu.cit.spedermath.util.HashUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * Default MediaStore: one media_blob row per distinct image, for deployments without a shared disk.
+ * Inserts run in their own transaction so a concurrent upload of the same image (primary key clash)
+ * cannot roll back the caller; a blob left behind by a caller that later rolls back is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseMediaStore implements MediaStore {
+
+    private final MediaBlobRepository blobRepository;
+    private final TransactionTemplate newTx;
+
+    public DatabaseMediaStore(MediaBlobRepository blobRepository, PlatformTransactionManager transactionManager) {
+        this.blobRepository = blobRepository;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public String put(byte[] data) {
+        String hash = HashUtil.sha256Hex(data);
+        try {
+            newTx.executeWithoutResult(status -> {
+                if (!blobRepository.existsById(hash)) blobRepository.save(new MediaBlob(hash, data));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // stored concurrently by another request; same content either way
+        }
+        return hash;
+    }
+
+    @Override
+    public Optional<Resource> get(String hash) {
+        if (!MediaStore.isHash(hash)) return Optional.empty();
+        return blobRepository.findDataByHash(hash).map(ByteArrayResource::new);
+    }
+}
@@ -0,0 +1,67 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.util.HashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Optional;
+
+/**
+ * Images as files under {@code app.media.root}, at {@code <root>/<first two hex chars>/<hash>}.
+ * Files are written to a temp file, forced to disk and renamed into place, so a hash that a committed
+ * row refers to always names a complete file. Reads hand out a FileSystemResource: the response is
+ * streamed from disk without loading the image onto the heap or holding a database connection.
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.store", havingValue = "filesystem")
+public class FileSystemMediaStore implements MediaStore {
+
+    private final Path root;
+
+    public FileSystemMediaStore(@Value("${app.media.root:media}") Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    @Override
+    public String put(byte[] data) {
+        String hash = HashUtil.sha256Hex(data);
+        Path target = pathFor(hash);
+        if (Files.exists(target)) return hash; // same content already stored
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ByteBuffer buf = ByteBuffer.wrap(data);
+                    while (buf.hasRemaining()) ch.write(buf);
+                    ch.force(true);
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store media " + hash, e);
+        }
+        return hash;
+    }
+
+    @Override
+    public Optional<Resource> get(String hash) {
+        if (!MediaStore.isHash(hash)) return Optional.empty();
+        Path path = pathFor(hash);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    private Path pathFor(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.repository.LessonRepository;
+import edu.cit.spedermath.util.HashUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory copy of the (tiny, rarely changing) lesson table.
+ * Readers get an immutable snapshot; {@link #rebuild()} swaps in a new one after every lesson write,
+ * so lookups and "next lesson" never hit the database.
+ * Lessons handed out are detached copies without {@code progressRecords}: treat them as read-only
+ * and use {@code LessonRepository#getReferenceById} when attaching a lesson to an entity.
+ */
+@Component
+public class LessonCatalog {
+
+    public record Snapshot(List<Lesson> ordered, Map<Long, Integer> indexById, int[] nextIndex, String etag) {
+
+        public Optional<Lesson> get(Long lessonId) {
+            Integer i = lessonId == null ? null : indexById.get(lessonId);
+            return i == null ? Optional.empty() : Optional.of(ordered.get(i));
+        }
+
+        /** First lesson with a strictly greater lessonOrder (same rule as the old repository query). */
+        public Optional<Lesson> next(Long lessonId) {
+            Integer i = lessonId == null ? null : indexById.get(lessonId);
+            if (i == null || nextIndex[i] < 0) return Optional.empty();
+            return Optional.of(ordered.get(nextIndex[i]));
+        }
+    }
+
+    private final LessonRepository lessonRepository;
+    private volatile Snapshot snapshot;
+
+    public LessonCatalog(LessonRepository lessonRepository) {
+        this.lessonRepository = lessonRepository;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        return s != null ? s : rebuild();
+    }
+
+    public Optional<Lesson> get(Long lessonId) {
+        return snapshot().get(lessonId);
+    }
+
+    public Optional<Lesson> next(Long lessonId) {
+        return snapshot().next(lessonId);
+    }
+
+    /** Reloads the table and atomically publishes a new snapshot. */
+    public synchronized Snapshot rebuild() {
+        List<Lesson> lessons = new ArrayList<>();
+        for (Lesson l : lessonRepository.findAll()) lessons.add(copyOf(l));
+        lessons.sort(Comparator.comparingInt(Lesson::getLessonOrder).thenComparing(Lesson::getLessonID));
+
+        Map<Long, Integer> indexById = new HashMap<>();
+        int[] nextIndex = new int[lessons.size()];
+        StringBuilder fingerprint = new StringBuilder();
+        int firstGreater = -1;
+        for (int i = lessons.size() - 1; i >= 0; i--) {
+            Lesson l = lessons.get(i);
+            indexById.put(l.getLessonID(), i);
+            // walk back from the end: firstGreater = first index after i whose order is strictly larger
+            if (i + 1 < lessons.size() && lessons.get(i + 1).getLessonOrder() > l.getLessonOrder()) {
+                firstGreater = i + 1;
+            }
+            nextIndex[i] = firstGreater;
+        }
+        for (Lesson l : lessons) {
+            fingerprint.append(l.getLessonID()).append('|')
+                    .append(l.getTitle()).append('|')
+                    .append(l.getDescription()).append('|')
+                    .append(l.getLessonType()).append('|')
+                    .append(l.getUnlockThreshold()).append('|')
+                    .append(l.getMax_score()).append('|')
+                    .append(l.getLessonOrder()).append('\n');
+        }
+
+        Snapshot s = new Snapshot(
+                Collections.unmodifiableList(lessons),
+                Collections.unmodifiableMap(indexById),
+                nextIndex,
+                "\"" + HashUtil.sha256Hex(fingerprint.toString()) + "\""
+        );
+        snapshot = s;
+        return s;
+    }
+
+    private static Lesson copyOf(Lesson l) {
+        Lesson c = new Lesson(l.getTitle(), l.getDescription(), l.getLessonType(),
+                l.getUnlockThreshold(), l.getMax_score(), l.getLessonOrder());
+        c.setLessonID(l.getLessonID());
+        return c;
+    }
+}
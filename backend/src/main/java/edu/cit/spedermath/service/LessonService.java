@@ -11,25 +11,38 @@ import java.util.Optional;
 public class LessonService {
 
     private final LessonRepository lessonRepository;
+    private final LessonCatalog lessonCatalog;
+    private final LessonStatsAggregator statsAggregator;
 
-    public LessonService(LessonRepository lessonRepository) {
+    public LessonService(LessonRepository lessonRepository, LessonCatalog lessonCatalog,
+                         LessonStatsAggregator statsAggregator) {
         this.lessonRepository = lessonRepository;
+        this.lessonCatalog = lessonCatalog;
+        this.statsAggregator = statsAggregator;
     }
 
+    /** Served from the in-memory catalog, ordered by lessonOrder. */
     public List<Lesson> getAllLessons() {
-        return lessonRepository.findAll();
+        return lessonCatalog.snapshot().ordered();
+    }
+
+    /** Catalog snapshot, so callers can read lessons and their ETag consistently. */
+    public LessonCatalog.Snapshot getCatalog() {
+        return lessonCatalog.snapshot();
     }
 
     public Optional<Lesson> getLessonById(Long id) {
-        return lessonRepository.findById(id);
+        return lessonCatalog.get(id);
     }
 
     public Lesson createLesson(Lesson lesson) {
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        lessonCatalog.rebuild();
+        return saved;
     }
 
     public Lesson updateLesson(Long id, Lesson updatedLesson) {
-        return lessonRepository.findById(id)
+        Lesson saved = lessonRepository.findById(id)
                 .map(lesson -> {
                     lesson.setTitle(updatedLesson.getTitle());
                     lesson.setDescription(updatedLesson.getDescription());
@@ -38,9 +51,13 @@ public class LessonService {
                     return lessonRepository.save(lesson);
                 })
                 .orElseThrow(() -> new RuntimeException("Lesson not found with id: " + id));
+        lessonCatalog.rebuild();
+        return saved;
     }
 
     public void deleteLesson(Long id) {
         lessonRepository.deleteById(id);
+        lessonCatalog.rebuild();
+        statsAggregator.invalidateAll(); // progress rows went with the lesson
     }
 }
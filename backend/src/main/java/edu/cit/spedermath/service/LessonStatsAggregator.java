@@ -0,0 +1,207 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.dto.LessonStatsDTO;
+import edu.cit.spedermath.dto.LessonStatsTotals;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.StudentProgress;
+import edu.cit.spedermath.repository.StudentProgressRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running per-(teacher, lesson) totals behind {@code GET /api/lesson-stats}.
+ * A teacher's totals are seeded once from a GROUP BY over their progress rows, then kept current by
+ * applying the before/after difference of every progress row the submit paths write (after commit).
+ * Each teacher has a version that every write bumps when it is recorded and again when it completes.
+ * A seed is published only if the version did not move while it ran, and a delta is applied only to
+ * totals seeded before the write was recorded; anything seeded while a write was in flight may or may
+ * not include it, so it is dropped and reseeded instead.
+ * Rare writes (retakes, deletes, roster or lesson changes) just drop the affected totals so the next
+ * read reseeds them; {@code app.lesson-stats.max-age} bounds drift from writes that bypass the services.
+ */
+@Component
+public class LessonStatsAggregator {
+
+    /** The part of one progress row that feeds the statistics. */
+    public record Contribution(Long lessonId, int score, Long timeSpentInSeconds, int retakesCount,
+                               boolean unlocked, Status status) {
+
+        public static Contribution of(Long lessonId, StudentProgress p) {
+            return new Contribution(lessonId, p.getScore(), p.getTimeSpentInSeconds(), p.getRetakesCount(),
+                    p.isUnlocked(), p.getStatus());
+        }
+    }
+
+    private static final class Totals {
+        long rows, scoreSum, timeSum, timeCount, retakesSum;
+        long unlocked, notUnlocked, completed, inProgress, notStarted, failed;
+
+        static Totals of(LessonStatsTotals t) {
+            Totals x = new Totals();
+            x.rows = n(t.rows());
+            x.scoreSum = n(t.scoreSum());
+            x.timeSum = n(t.timeSum());
+            x.timeCount = n(t.timeCount());
+            x.retakesSum = n(t.retakesSum());
+            x.unlocked = n(t.unlockedCount());
+            x.notUnlocked = n(t.notUnlockedCount());
+            x.completed = n(t.completedCount());
+            x.inProgress = n(t.inProgressCount());
+            x.notStarted = n(t.notStartedCount());
+            x.failed = n(t.failedCount());
+            return x;
+        }
+
+        void apply(Contribution c, int sign) {
+            rows += sign;
+            scoreSum += (long) sign * c.score();
+            if (c.timeSpentInSeconds() != null) {
+                timeSum += sign * c.timeSpentInSeconds();
+                timeCount += sign;
+            }
+            retakesSum += (long) sign * c.retakesCount();
+            if (c.unlocked()) unlocked += sign; else notUnlocked += sign;
+            if (c.status() == null) return;
+            switch (c.status()) {
+                case COMPLETED -> completed += sign;
+                case IN_PROGRESS -> inProgress += sign;
+                case NOT_STARTED -> notStarted += sign;
+                case FAILED -> failed += sign;
+            }
+        }
+
+        LessonStatsDTO toDto(Lesson lesson) {
+            return new LessonStatsDTO(
+                    lesson.getLessonID(),
+                    lesson.getTitle(),
+                    (double) scoreSum / rows,
+                    timeCount > 0 ? (double) timeSum / timeCount : null,
+                    retakesSum, unlocked, notUnlocked, completed, inProgress, notStarted, failed,
+                    lesson.getLessonType(),
+                    lesson.getMax_score());
+        }
+
+        private static long n(Long v) {
+            return v != null ? v : 0L;
+        }
+    }
+
+    private static final class TeacherTotals {
+        final Map<Long, Totals> byLesson = new HashMap<>();
+        final long builtAt = System.nanoTime();
+        final long version; // the teacher's version when the seed query started
+
+        TeacherTotals(long version) {
+            this.version = version;
+        }
+    }
+
+    private final StudentProgressRepository progressRepo;
+    private final LessonCatalog lessonCatalog;
+    private final long maxAgeNanos;
+    private final Map<Long, TeacherTotals> byTeacher = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public LessonStatsAggregator(StudentProgressRepository progressRepo,
+                                 LessonCatalog lessonCatalog,
+                                 @Value("${app.lesson-stats.max-age:PT10M}") Duration maxAge) {
+        this.progressRepo = progressRepo;
+        this.lessonCatalog = lessonCatalog;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /** Stats in lesson order; {@code type == null} means every lesson type. */
+    public List<LessonStatsDTO> statsFor(Long teacherId, LessonType type) {
+        if (teacherId == null) return List.of();
+        TeacherTotals totals = load(teacherId);
+        List<LessonStatsDTO> result = new ArrayList<>();
+        synchronized (totals) {
+            for (Lesson lesson : lessonCatalog.snapshot().ordered()) {
+                if (type != null && lesson.getLessonType() != type) continue;
+                Totals t = totals.byLesson.get(lesson.getLessonID());
+                if (t != null && t.rows > 0) result.add(t.toDto(lesson));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records that the given progress rows changed from {@code before} to {@code after}; call it after the
+     * rows are written. Inside a transaction the delta is applied only once it commits.
+     */
+    public void recordChange(Long teacherId, List<Contribution> before, List<Contribution> after) {
+        if (teacherId == null) return;
+        AtomicLong version = version(teacherId);
+        long ticket = version.incrementAndGet(); // before the commit, so seeds running across it are not published
+        afterCommit(() -> {
+            version.incrementAndGet(); // a seed that started before the write may have read after the commit
+            byTeacher.computeIfPresent(teacherId, (id, totals) -> {
+                if (totals.version >= ticket) return null; // seeded while the write was in flight: may already count it
+                synchronized (totals) {
+                    for (Contribution c : before) totals.byLesson.computeIfAbsent(c.lessonId(), l -> new Totals()).apply(c, -1);
+                    for (Contribution c : after) totals.byLesson.computeIfAbsent(c.lessonId(), l -> new Totals()).apply(c, 1);
+                }
+                return totals;
+            });
+        }, () -> drop(teacherId));
+    }
+
+    public void invalidate(Long teacherId) {
+        if (teacherId == null) return;
+        afterCommit(() -> drop(teacherId), () -> drop(teacherId));
+    }
+
+    public void invalidateAll() {
+        Runnable dropAll = () -> {
+            versions.values().forEach(AtomicLong::incrementAndGet);
+            byTeacher.clear();
+        };
+        afterCommit(dropAll, dropAll);
+    }
+
+    private void drop(Long teacherId) {
+        version(teacherId).incrementAndGet();
+        byTeacher.remove(teacherId);
+    }
+
+    private AtomicLong version(Long teacherId) {
+        return versions.computeIfAbsent(teacherId, id -> new AtomicLong());
+    }
+
+    /** Cached totals, or a fresh seed; the seed is only cached if no write was recorded or completed while it ran. */
+    private TeacherTotals load(Long teacherId) {
+        TeacherTotals cached = byTeacher.get(teacherId);
+        if (cached != null && System.nanoTime() - cached.builtAt < maxAgeNanos) return cached;
+        AtomicLong version = version(teacherId);
+        TeacherTotals fresh = new TeacherTotals(version.get());
+        for (LessonStatsTotals row : progressRepo.getLessonTotalsByTeacherId(teacherId)) {
+            fresh.byLesson.put(row.lessonId(), Totals.of(row));
+        }
+        byTeacher.compute(teacherId, (id, current) -> version.get() == fresh.version ? fresh : current);
+        return fresh;
+    }
+
+    /** Runs {@code onCommit} after a successful commit (or now, outside a transaction); {@code onUnknown} if the outcome is unknown. */
+    private static void afterCommit(Runnable onCommit, Runnable onUnknown) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) onCommit.run();
+                else if (status == STATUS_UNKNOWN) onUnknown.run();
+            }
+        });
+    }
+}
@@ -1,8 +1,14 @@
 package edu.cit.spedermath.service;
 
 import edu.cit.spedermath.dto.LessonStatsDTO;
+import edu.cit.spedermath.enums.LessonType;
 import java.util.List;
 
 public interface LessonStatsService {
-    List<LessonStatsDTO> getLessonStatsForTeacher(Long teacherId);
+    default List<LessonStatsDTO> getLessonStatsForTeacher(Long teacherId) {
+        return getLessonStatsForTeacher(teacherId, null);
+    }
+
+    /** {@code type == null} returns every lesson type. */
+    List<LessonStatsDTO> getLessonStatsForTeacher(Long teacherId, LessonType type);
 }
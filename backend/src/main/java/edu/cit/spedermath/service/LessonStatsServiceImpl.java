@@ -1,8 +1,9 @@
 package edu.cit.spedermath.service;
 
 import edu.cit.spedermath.dto.LessonStatsDTO;
-import edu.cit.spedermath.repository.StudentProgressRepository;
+import edu.cit.spedermath.enums.LessonType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 
@@ -10,10 +11,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LessonStatsServiceImpl implements LessonStatsService {
 
-    private final StudentProgressRepository studentProgressRepository;
+    private final LessonStatsAggregator lessonStatsAggregator;
 
     @Override
-    public List<LessonStatsDTO> getLessonStatsForTeacher(Long teacherId) {
-        return studentProgressRepository.getLessonStatisticsByTeacherId(teacherId);
+    @Transactional(readOnly = true)
+    public List<LessonStatsDTO> getLessonStatsForTeacher(Long teacherId, LessonType type) {
+        return lessonStatsAggregator.statsFor(teacherId, type);
     }
 }
@@ -0,0 +1,127 @@
+package edu.cit.spedermath.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntSupplier;
+
+/**
+ * Moves pictures out of the legacy {@code student.profile_picture} and {@code teacher.photo_blob} columns
+ * into the MediaStore. Runs at startup for as long as such a column still holds bytes,
+ * {@code app.media.migration.batch-size} rows per transaction, so neither a long transaction nor every
+ * image at once is held. Migrated rows are nulled; drop the columns by hand once no older instance is running.
+ */
+@Component
+public class MediaMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaMigration.class);
+
+    /** One owner table and where its pictures go. {@code hashColumn} is the owner's cached hash, if any. */
+    record Target(String ownerTable, String ownerId, String legacyColumn, String mediaIdColumn,
+                  String mediaTable, String mediaOwnerColumn, String hashColumn) {}
+
+    static final List<Target> TARGETS = List.of(
+            new Target("student", "studentid", "profile_picture", "profile_media_id",
+                    "student_media", "student_id", "profile_picture_hash"),
+            new Target("teacher", "teacherid", "photo_blob", "photo_media_id",
+                    "teacher_media", "teacher_id", "photo_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MediaStore mediaStore;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public MediaMigration(JdbcTemplate jdbcTemplate,
+                          MediaStore mediaStore,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.media.migration.enabled:true}") boolean enabled,
+                          @Value("${app.media.migration.batch-size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mediaStore = mediaStore;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        for (Target target : TARGETS) {
+            if (columnExists(target.ownerTable(), target.legacyColumn())) {
+                int moved = drain(() -> migrateBatch(target));
+                if (moved > 0) log.info("Moved {} pictures from {}.{} to the media store", moved, target.ownerTable(), target.legacyColumn());
+            }
+        }
+    }
+
+    private int drain(IntSupplier batchStep) {
+        int moved = 0;
+        int batch;
+        while ((batch = Objects.requireNonNull(tx.execute(status -> batchStep.getAsInt()))) > 0) {
+            moved += batch;
+        }
+        return moved;
+    }
+
+    /** Migrates up to one batch of {@code target}; returns the number of owner rows handled. */
+    int migrateBatch(Target t) {
+        record Legacy(long ownerId, byte[] data) {}
+        List<Legacy> rows = jdbcTemplate.query(
+                "SELECT " + t.ownerId() + ", " + t.legacyColumn() + " FROM " + t.ownerTable()
+                        + " WHERE " + t.legacyColumn() + " IS NOT NULL AND " + t.mediaIdColumn() + " IS NULL"
+                        + " ORDER BY " + t.ownerId() + " LIMIT ?",
+                (rs, i) -> new Legacy(rs.getLong(1), rs.getBytes(2)), batchSize);
+        if (rows.isEmpty()) return 0;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>(rows.size());
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (Legacy row : rows) {
+            // an empty picture is no picture: just clear the legacy column
+            String hash = row.data().length > 0 ? mediaStore.put(row.data()) : null;
+            if (hash != null) inserts.add(new Object[]{row.ownerId(), hash, now});
+            updates.add(t.hashColumn() != null
+                    ? new Object[]{row.ownerId(), hash, row.ownerId()}
+                    : new Object[]{row.ownerId(), row.ownerId()});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO " + t.mediaTable() + " (" + t.mediaOwnerColumn()
+                + ", content_hash, updated_at) VALUES (?, ?, ?)", inserts);
+        jdbcTemplate.batchUpdate("UPDATE " + t.ownerTable() + " SET " + t.mediaIdColumn()
+                + " = (SELECT media_id FROM " + t.mediaTable() + " WHERE " + t.mediaOwnerColumn() + " = ?), "
+                + t.legacyColumn() + " = NULL"
+                + (t.hashColumn() != null ? ", " + t.hashColumn() + " = ?" : "")
+                + " WHERE " + t.ownerId() + " = ?", updates);
+        return rows.size();
+    }
+
+    private boolean columnExists(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection c) -> {
+            DatabaseMetaData meta = c.getMetaData();
+            boolean upper = meta.storesUpperCaseIdentifiers();
+            try (ResultSet rs = meta.getColumns(null, null,
+                    upper ? table.toUpperCase() : table, upper ? column.toUpperCase() : column)) {
+                return rs.next();
+            } catch (SQLException e) {
+                return false;
+            }
+        }));
+    }
+}
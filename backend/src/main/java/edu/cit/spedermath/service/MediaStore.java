@@ -0,0 +1,23 @@
+package edu.cit.spedermath.service;
+
+import org.springframework.core.io.Resource;
+
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for profile images. Content is keyed by its SHA-256 (hex), so storing the
+ * same image twice (default avatars, re-uploads) keeps a single copy; student_media / teacher_media
+ * only hold the hash. The implementation is picked with {@code app.media.store=database|filesystem}.
+ */
+public interface MediaStore {
+
+    /** Stores {@code data} unless identical content is already present; returns its hash. */
+    String put(byte[] data);
+
+    /** The content stored under {@code hash}, if any. */
+    Optional<Resource> get(String hash);
+
+    static boolean isHash(String hash) {
+        return hash != null && hash.length() == 64 && hash.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+}
@@ -1,28 +1,40 @@
 package edu.cit.spedermath.service;
 
+import edu.cit.spedermath.config.ReplicaRead;
+import edu.cit.spedermath.dto.AttemptCursor;
 import edu.cit.spedermath.dto.AttemptHistoryDTO;
+import edu.cit.spedermath.dto.CursorPage;
 import edu.cit.spedermath.enums.LessonType;
 import edu.cit.spedermath.enums.Status;
 import edu.cit.spedermath.model.Lesson;
 import edu.cit.spedermath.model.Student;
 import edu.cit.spedermath.model.StudentAttempt;
 import edu.cit.spedermath.repository.StudentAttemptRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class StudentAttemptService {
 
     private final StudentAttemptRepository attemptRepo;
+    private final AttemptLogWriter attemptLogWriter;
 
-    public StudentAttemptService(StudentAttemptRepository attemptRepo) {
+    public StudentAttemptService(StudentAttemptRepository attemptRepo, AttemptLogWriter attemptLogWriter) {
         this.attemptRepo = attemptRepo;
+        this.attemptLogWriter = attemptLogWriter;
     }
 
-    /** Called whenever an assessment is submitted (alongside StudentProgress). */
+    /**
+     * Called whenever an assessment is submitted (alongside StudentProgress).
+     * In write-behind mode the row is queued and the returned attempt has no id yet;
+     * if the queue is full it is saved synchronously as before.
+     */
     public StudentAttempt logAttempt(Student student, Lesson lesson, Integer score,
                                      Status status, Integer timeSpentSeconds) {
         StudentAttempt a = new StudentAttempt();
@@ -32,87 +44,80 @@ public class StudentAttemptService {
         a.setStatus(status);
         a.setTimeSpentSeconds(timeSpentSeconds);
         a.setAttemptedAt(LocalDateTime.now());
+        if (attemptLogWriter.isWriteBehind() && attemptLogWriter.offer(toRow(a))) {
+            return a;
+        }
         return attemptRepo.save(a);
     }
 
-    /** Full history for a student across all lessons (newest first). */
-    public List<StudentAttempt> getHistory(Long studentId) {
-        return attemptRepo.findByStudent_StudentIDOrderByAttemptedAtDesc(studentId);
+    /**
+     * Bulk variant of {@link #logAttempt} for batch submits: one JDBC batch insert instead of a save per row
+     * (IDENTITY ids keep Hibernate from batching). Joins the caller's transaction.
+     */
+    public void logAttempts(List<StudentAttempt> attempts) {
+        attemptLogWriter.insert(attempts.stream().map(StudentAttemptService::toRow).toList());
     }
 
-    /** History for a student for a specific lesson (newest first). */
-    public List<StudentAttempt> getHistoryForLesson(Long studentId, Long lessonId) {
-        return attemptRepo.findByStudent_StudentIDAndLesson_LessonIDOrderByAttemptedAtDesc(studentId, lessonId);
+    private static AttemptLogWriter.Row toRow(StudentAttempt a) {
+        return new AttemptLogWriter.Row(a.getStudent().getStudentID(), a.getLesson().getLessonID(), a.getScore(),
+                a.getStatus(), a.getTimeSpentSeconds(), a.getAttemptedAt());
     }
 
-    /** Recent N attempts across all lessons (unfiltered). */
-    public List<StudentAttempt> getRecent(Long studentId, int limit) {
-        return attemptRepo.findRecentAttempts(studentId, PageRequest.of(0, Math.max(1, limit)));
+    /** Largest page the history endpoint hands out. */
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    /**
+     * One page of a student's history (newest first), optionally for a single lesson.
+     * {@code after} is the {@code nextCursor} of the previous page, or null for the first page.
+     * @throws IllegalArgumentException if {@code after} is not a valid cursor
+     */
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AttemptHistoryDTO> getHistoryPage(Long studentId, Long lessonId, String after, int size) {
+        int pageSize = Math.min(Math.max(1, size), MAX_HISTORY_PAGE_SIZE);
+        Limit limit = Limit.of(pageSize + 1); // one extra row tells us whether there is a next page
+        AttemptCursor cursor = after == null || after.isBlank() ? null : AttemptCursor.decode(after);
+
+        List<AttemptHistoryDTO> rows;
+        if (lessonId == null) {
+            rows = cursor == null
+                    ? attemptRepo.findHistory(studentId, limit)
+                    : attemptRepo.findHistoryBefore(studentId, cursor.attemptedAt(), cursor.attemptId(), limit);
+        } else {
+            rows = cursor == null
+                    ? attemptRepo.findLessonHistory(studentId, lessonId, limit)
+                    : attemptRepo.findLessonHistoryBefore(studentId, lessonId, cursor.attemptedAt(), cursor.attemptId(), limit);
+        }
+
+        if (rows.size() <= pageSize) return new CursorPage<>(rows, null);
+        List<AttemptHistoryDTO> page = rows.subList(0, pageSize);
+        return new CursorPage<>(List.copyOf(page), AttemptCursor.of(page.get(pageSize - 1)).encode());
     }
 
-    /** ✅ Recent N attempts filtered by LessonType (e.g., only ASSESSMENT). */
-    public List<StudentAttempt> getRecentByType(Long studentId, LessonType type, int limit) {
-        return attemptRepo.findRecentByStudentAndType(
-                studentId,
-                type,
-                PageRequest.of(0, Math.max(1, limit))
-        );
+    /** Most recent attempt for a lesson, read as a single projected row. */
+    @Transactional(readOnly = true)
+    public Optional<AttemptHistoryDTO> getLatestAttemptDTO(Long studentId, Long lessonId) {
+        return attemptRepo.findLessonHistory(studentId, lessonId, Limit.of(1)).stream().findFirst();
     }
 
-    /** Map history-for-lesson to DTO (with lessonType + lessonOrder). */
-    public List<AttemptHistoryDTO> getHistoryDTOForLesson(Long studentId, Long lessonId) {
-        return getHistoryForLesson(studentId, lessonId).stream()
-                .map(a -> new AttemptHistoryDTO(
-                        a.getAttemptId(),
-                        a.getLesson().getLessonID(),
-                        a.getLesson().getTitle(),
-                        a.getScore(),
-                        a.getStatus() != null ? a.getStatus().name() : null,
-                        a.getTimeSpentSeconds(),
-                        a.getAttemptedAt(),
-                        a.getLesson().getLessonType(),
-                        a.getLesson().getLessonOrder(),
-                        a.getLesson().getMax_score(),
-                        a.getLesson().getUnlockThreshold()
-                ))
-                .toList();
+    /** Recent N attempts across all lessons (unfiltered). */
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<StudentAttempt> getRecent(Long studentId, int limit) {
+        return attemptRepo.findRecentAttempts(studentId, PageRequest.of(0, Math.max(1, limit)));
     }
 
-    /** Map recent attempts to DTO (unfiltered, includes lessonOrder). */
+    /** Recent attempts as DTO rows projected in the query (unfiltered, includes lessonOrder). */
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<AttemptHistoryDTO> getRecentDTO(Long studentId, int limit) {
-        return getRecent(studentId, limit).stream()
-                .map(a -> new AttemptHistoryDTO(
-                        a.getAttemptId(),
-                        a.getLesson().getLessonID(),
-                        a.getLesson().getTitle(),
-                        a.getScore(),
-                        a.getStatus() != null ? a.getStatus().name() : null,
-                        a.getTimeSpentSeconds(),
-                        a.getAttemptedAt(),
-                        a.getLesson().getLessonType(),
-                        a.getLesson().getLessonOrder(),
-                        a.getLesson().getMax_score(),
-                        a.getLesson().getUnlockThreshold()
-                ))
-                .toList();
+        return attemptRepo.findHistory(studentId, Limit.of(Math.max(1, limit)));
     }
 
-    /** ✅ Map filtered attempts (by LessonType) to DTO (includes lessonOrder). */
+    /** ✅ Recent attempts filtered by LessonType (e.g., only ASSESSMENT), projected in the query. */
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<AttemptHistoryDTO> getRecentDTOByType(Long studentId, LessonType type, int limit) {
-        return getRecentByType(studentId, type, limit).stream()
-                .map(a -> new AttemptHistoryDTO(
-                        a.getAttemptId(),
-                        a.getLesson().getLessonID(),
-                        a.getLesson().getTitle(),
-                        a.getScore(),
-                        a.getStatus() != null ? a.getStatus().name() : null,
-                        a.getTimeSpentSeconds(),
-                        a.getAttemptedAt(),
-                        a.getLesson().getLessonType(),
-                        a.getLesson().getLessonOrder(),
-                        a.getLesson().getMax_score(),
-                        a.getLesson().getUnlockThreshold()
-                ))
-                .toList();
+        return attemptRepo.findRecentByStudentAndType(studentId, type, Limit.of(Math.max(1, limit)));
     }
 }
@@ -1,32 +1,92 @@
 package edu.cit.spedermath.service;
 
+import edu.cit.spedermath.dto.StudentSummaryDTO;
 import edu.cit.spedermath.model.Student;
 import edu.cit.spedermath.model.StudentLoginToken;
 import edu.cit.spedermath.repository.StudentLoginTokenRepository;
+import edu.cit.spedermath.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class StudentLoginTokenService {
 
+    public static final Duration TOKEN_TTL = Duration.ofMinutes(10);
+
+    /** A token issued for one roster student, with what a printed QR sheet needs. */
+    public record IssuedToken(Long studentId, String fname, String lname, String token, Instant expiresAt) {}
+
+    private static final String INSERT_TOKEN_SQL = """
+        INSERT INTO student_login_token (token, expires_at, used, student_studentid)
+        VALUES (?, ?, false, ?)
+    """;
+    private static final int INSERT_BATCH_SIZE = 100;
+    private static final Sort ROSTER_ORDER = Sort.by("lname", "fname", "studentID");
+
     @Autowired
     private StudentLoginTokenRepository tokenRepo;
 
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.publicApiBaseUrl}")
+    private String publicApiBaseUrl;
+
     public String createTokenForStudent(Student student) {
         StudentLoginToken t = new StudentLoginToken();
         t.setToken(UUID.randomUUID().toString());
         t.setStudent(student);
         t.setUsed(false);
-        t.setExpiresAt(Instant.now().plus(Duration.ofMinutes(10)));
+        t.setExpiresAt(Instant.now().plus(TOKEN_TTL));
         tokenRepo.save(t);
         return t.getToken();
     }
 
+    /**
+     * One token per student of the teacher, in roster order (last name, first name), for a printed class sheet.
+     * The roster is one projection query and the tokens go in as one JDBC batch (IDENTITY ids rule out
+     * Hibernate insert batching), all in a single transaction.
+     */
+    @Transactional
+    public List<IssuedToken> createTokensForTeacher(Long teacherId) {
+        Instant expiresAt = Instant.now().plus(TOKEN_TTL);
+        List<IssuedToken> issued = studentRepository.findRosterByTeacherId(teacherId, Pageable.unpaged(ROSTER_ORDER))
+                .stream()
+                .map((StudentSummaryDTO s) -> new IssuedToken(s.getStudentID(), s.getFname(), s.getLname(),
+                        UUID.randomUUID().toString(), expiresAt))
+                .toList();
+        OffsetDateTime expires = OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(INSERT_TOKEN_SQL, issued, INSERT_BATCH_SIZE, (ps, t) -> {
+            ps.setString(1, t.token());
+            ps.setObject(2, expires);
+            ps.setLong(3, t.studentId());
+        });
+        return issued;
+    }
+
+    /** The link a student's QR code points at. */
+    public String qrLoginUrl(String token) {
+        return publicApiBaseUrl + "/public/qr-login?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
+    }
+
     public Optional<Student> validateAndConsume(String token) {
         Optional<StudentLoginToken> tokenOpt = tokenRepo.findByToken(token);
         if (tokenOpt.isEmpty()) return Optional.empty();
@@ -1,8 +1,11 @@
 package edu.cit.spedermath.service;
 
+import edu.cit.spedermath.dto.BatchSubmitResult;
+import edu.cit.spedermath.dto.StudentProgressDTO;
 import edu.cit.spedermath.enums.Status;
 import edu.cit.spedermath.model.Lesson;
 import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.StudentAttempt;
 import edu.cit.spedermath.model.StudentProgress;
 import edu.cit.spedermath.repository.LessonRepository;
 import edu.cit.spedermath.repository.StudentProgressRepository;
@@ -10,8 +13,8 @@ import edu.cit.spedermath.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,28 +30,52 @@ public class StudentProgressService {
     @Autowired
     private LessonRepository lessonRepo;
 
-    public List<StudentProgress> getProgressByStudent(Long studentId) {
-        return progressRepo.findByStudent_StudentID(studentId);
+    @Autowired
+    private StudentAttemptService attemptService;
+
+    @Autowired
+    private LessonCatalog lessonCatalog;
+
+    @Autowired
+    private LessonStatsAggregator statsAggregator;
+
+    /** Upper bound for one offline flush from a tablet. */
+    public static final int MAX_BATCH_SIZE = 200;
+
+    @Transactional(readOnly = true)
+    public List<StudentProgressDTO> getProgressByStudent(Long studentId) {
+        return progressRepo.findDTOsByStudentId(studentId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StudentProgressDTO> getStudentLessonProgressDTO(Long studentId, Long lessonId) {
+        return progressRepo.findDTOByStudentIdAndLessonId(studentId, lessonId);
     }
 
+    @Transactional(readOnly = true)
     public Optional<StudentProgress> getStudentLessonProgress(Long studentId, Long lessonId) {
         return progressRepo.findByStudent_StudentIDAndLesson_LessonID(studentId, lessonId);
     }
 
     @Transactional
-    public StudentProgress submitLessonProgress(StudentProgress incomingProgress, Long studentId) {
+    public StudentProgress submitLessonProgress(StudentProgressDTO incomingProgress, Long studentId) {
         Student student = studentRepo.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found."));
-        Lesson lesson = lessonRepo.findById(incomingProgress.getLesson().getLessonID())
+        Lesson lesson = lessonCatalog.get(incomingProgress.getLessonId())
                 .orElseThrow(() -> new RuntimeException("Lesson not found."));
 
         Optional<StudentProgress> existingProgressOpt =
                 progressRepo.findByStudent_StudentIDAndLesson_LessonID(studentId, lesson.getLessonID());
 
+        // before/after images of the rows we write, for the teacher's running lesson stats
+        List<LessonStatsAggregator.Contribution> before = new ArrayList<>(2);
+        List<LessonStatsAggregator.Contribution> after = new ArrayList<>(2);
+        existingProgressOpt.ifPresent(p -> before.add(LessonStatsAggregator.Contribution.of(lesson.getLessonID(), p)));
+
         StudentProgress target = existingProgressOpt.orElseGet(StudentProgress::new);
         if (target.getProgressID() == null) {
             target.setStudent(student);
-            target.setLesson(lesson);
+            target.setLesson(lessonRepo.getReferenceById(lesson.getLessonID()));
             target.setRetakesCount(0);
         }
 
@@ -62,9 +89,11 @@ public class StudentProgressService {
         target.setLastUpdated(LocalDate.now());
 
         StudentProgress saved;
+        boolean raced = false;
         try {
             saved = progressRepo.save(target);
         } catch (DataIntegrityViolationException e) {
+            raced = true;
             saved = progressRepo
                     .findByStudent_StudentIDAndLesson_LessonID(studentId, lesson.getLessonID())
                     .orElseThrow();
@@ -78,16 +107,22 @@ public class StudentProgressService {
             saved.setLastUpdated(LocalDate.now());
             saved = progressRepo.save(saved);
         }
+        after.add(LessonStatsAggregator.Contribution.of(lesson.getLessonID(), saved));
+
+        attemptService.logAttempt(student, saved.getLesson(), incomingProgress.getScore(), incomingProgress.getStatus(),
+                incomingProgress.getTimeSpentInSeconds() != null ? incomingProgress.getTimeSpentInSeconds().intValue() : null);
 
-        lessonRepo.findFirstByLessonOrderGreaterThanOrderByLessonOrderAsc(lesson.getLessonOrder())
+        boolean[] nextRaced = {false};
+        lessonCatalog.next(lesson.getLessonID())
                 .ifPresent(nextLesson -> {
                     if (incomingProgress.getScore() >= nextLesson.getUnlockThreshold()) {
                         Optional<StudentProgress> nextOpt =
                                 progressRepo.findByStudent_StudentIDAndLesson_LessonID(studentId, nextLesson.getLessonID());
+                        nextOpt.ifPresent(p -> before.add(LessonStatsAggregator.Contribution.of(nextLesson.getLessonID(), p)));
                         StudentProgress next = nextOpt.orElseGet(StudentProgress::new);
                         if (next.getProgressID() == null) {
                             next.setStudent(student);
-                            next.setLesson(nextLesson);
+                            next.setLesson(lessonRepo.getReferenceById(nextLesson.getLessonID()));
                         }
                         boolean unlockNext = incomingProgress.getScore() >= nextLesson.getUnlockThreshold();
                         next.setUnlocked(unlockNext);
@@ -95,7 +130,9 @@ public class StudentProgressService {
                         next.setLastUpdated(LocalDate.now());
                         try {
                             progressRepo.save(next);
+                            after.add(LessonStatsAggregator.Contribution.of(nextLesson.getLessonID(), next));
                         } catch (DataIntegrityViolationException ex) {
+                            nextRaced[0] = true;
                             StudentProgress latestNext = progressRepo
                                     .findByStudent_StudentIDAndLesson_LessonID(studentId, nextLesson.getLessonID())
                                     .orElseThrow();
@@ -107,25 +144,149 @@ public class StudentProgressService {
                     }
                 });
 
+        Long teacherId = studentRepo.findTeacherIdByStudentId(studentId).orElse(null);
+        if (raced || nextRaced[0]) {
+            statsAggregator.invalidate(teacherId); // prior state of the row is unknown
+        } else {
+            statsAggregator.recordChange(teacherId, before, after);
+        }
         return saved;
     }
 
+    /**
+     * Applies queued offline results in one transaction, in request order, with the same rules as
+     * {@link #submitLessonProgress}. Lessons and the student's progress rows are prefetched in
+     * set-based queries and attempts are written with one JDBC batch. Invalid items are reported
+     * and skipped; the rest still commit.
+     */
+    @Transactional
+    public List<BatchSubmitResult> submitLessonProgressBatch(List<StudentProgressDTO> items, Long studentId) {
+        Student student = studentRepo.findById(studentId)
+                .orElseThrow(() -> new RuntimeException("Student not found."));
+
+        LessonCatalog.Snapshot catalog = lessonCatalog.snapshot();
+
+        // Progress rows for every lesson we may touch: submitted ones and their unlock targets
+        Set<Long> touchedLessonIds = new HashSet<>();
+        for (StudentProgressDTO item : items) {
+            catalog.get(item.getLessonId()).ifPresent(l -> touchedLessonIds.add(l.getLessonID()));
+            catalog.next(item.getLessonId()).ifPresent(l -> touchedLessonIds.add(l.getLessonID()));
+        }
+        Map<Long, StudentProgress> progressByLesson = new HashMap<>();
+        if (!touchedLessonIds.isEmpty()) {
+            for (StudentProgress p : progressRepo.findByStudent_StudentIDAndLesson_LessonIDIn(studentId, touchedLessonIds)) {
+                progressByLesson.put(p.getLesson().getLessonID(), p);
+            }
+        }
+        Map<Long, LessonStatsAggregator.Contribution> beforeByLesson = new HashMap<>();
+        progressByLesson.forEach((id, p) -> beforeByLesson.put(id, LessonStatsAggregator.Contribution.of(id, p)));
+
+        List<BatchSubmitResult> results = new ArrayList<>(items.size());
+        List<StudentProgress> submitted = new ArrayList<>(items.size());
+        List<StudentAttempt> attempts = new ArrayList<>(items.size());
+        Set<StudentProgress> dirty = new LinkedHashSet<>();
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < items.size(); i++) {
+            StudentProgressDTO item = items.get(i);
+            Lesson lesson = catalog.get(item.getLessonId()).orElse(null);
+            if (lesson == null) {
+                results.add(BatchSubmitResult.failed(i, item.getLessonId(), "Lesson not found."));
+                submitted.add(null);
+                continue;
+            }
+            if (item.getStatus() == null) {
+                results.add(BatchSubmitResult.failed(i, item.getLessonId(), "Status must not be null."));
+                submitted.add(null);
+                continue;
+            }
+            StudentProgress target = progressByLesson.computeIfAbsent(lesson.getLessonID(), id -> {
+                StudentProgress p = new StudentProgress();
+                p.setStudent(student);
+                p.setLesson(lessonRepo.getReferenceById(id));
+                p.setRetakesCount(0);
+                return p;
+            });
+            target.setScore(item.getScore());
+            target.setStatus(item.getStatus());
+            if (target.getStatus() == Status.FAILED) {
+                target.setRetakesCount(target.getRetakesCount() + 1);
+            }
+            target.setUnlocked(true);
+            target.setTimeSpentInSeconds(item.getTimeSpentInSeconds());
+            target.setLastUpdated(today);
+            dirty.add(target);
+            submitted.add(target);
+
+            Lesson nextLesson = catalog.next(lesson.getLessonID()).orElse(null);
+            if (nextLesson != null) {
+                if (item.getScore() >= nextLesson.getUnlockThreshold()) {
+                    StudentProgress next = progressByLesson.computeIfAbsent(nextLesson.getLessonID(), id -> {
+                        StudentProgress p = new StudentProgress();
+                        p.setStudent(student);
+                        p.setLesson(lessonRepo.getReferenceById(id));
+                        return p;
+                    });
+                    next.setUnlocked(true);
+                    next.setStatus(Status.NOT_STARTED);
+                    next.setLastUpdated(today);
+                    dirty.add(next);
+                }
+            }
+
+            StudentAttempt attempt = new StudentAttempt();
+            attempt.setStudent(student);
+            attempt.setLesson(lesson);
+            attempt.setScore(item.getScore());
+            attempt.setStatus(item.getStatus());
+            attempt.setTimeSpentSeconds(item.getTimeSpentInSeconds() != null ? item.getTimeSpentInSeconds().intValue() : null);
+            attempt.setAttemptedAt(now);
+            attempts.add(attempt);
+
+            results.add(null); // filled once ids are assigned
+        }
+
+        progressRepo.saveAll(dirty);
+        attemptService.logAttempts(attempts);
+
+        List<LessonStatsAggregator.Contribution> before = new ArrayList<>();
+        List<LessonStatsAggregator.Contribution> after = new ArrayList<>();
+        for (StudentProgress p : dirty) {
+            Long lessonId = p.getLesson().getLessonID();
+            LessonStatsAggregator.Contribution old = beforeByLesson.get(lessonId);
+            if (old != null) before.add(old);
+            after.add(LessonStatsAggregator.Contribution.of(lessonId, p));
+        }
+        statsAggregator.recordChange(teacherIdOf(student), before, after);
+
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                StudentProgress p = submitted.get(i);
+                results.set(i, BatchSubmitResult.ok(i, items.get(i).getLessonId(), p.getProgressID()));
+            }
+        }
+        return results;
+    }
+
     public StudentProgress savePartialProgress(StudentProgress incomingProgress, Long studentId) {
         Student student = studentRepo.findById(studentId).orElseThrow(() -> new RuntimeException("Student not found."));
-        Lesson lesson = lessonRepo.findById(incomingProgress.getLesson().getLessonID())
+        Lesson lesson = lessonCatalog.get(incomingProgress.getLesson().getLessonID())
                 .orElseThrow(() -> new RuntimeException("Lesson not found."));
 
         incomingProgress.setStudent(student);
-        incomingProgress.setLesson(lesson);
+        incomingProgress.setLesson(lessonRepo.getReferenceById(lesson.getLessonID()));
         incomingProgress.setStatus(Status.IN_PROGRESS);
         incomingProgress.setUnlocked(false);
         incomingProgress.setLastUpdated(LocalDate.now());
 
-        return progressRepo.save(incomingProgress);
+        StudentProgress saved = progressRepo.save(incomingProgress);
+        statsAggregator.invalidate(teacherIdOf(student));
+        return saved;
     }
 
     public StudentProgress updateProgressForRetake(Long progressId, StudentProgress newProgressData, Long studentId) {
-        StudentProgress existing = progressRepo.findById(progressId)
+        StudentProgress existing = progressRepo.findWithStudentByProgressID(progressId)
                 .orElseThrow(() -> new RuntimeException("Progress not found."));
         if (!existing.getStudent().getStudentID().equals(studentId)) {
             throw new RuntimeException("Unauthorized update attempt. Progress does not belong to the logged-in student.");
@@ -134,24 +295,34 @@ public class StudentProgressService {
         existing.setStatus(newProgressData.getStatus());
         existing.setUnlocked(newProgressData.isUnlocked());
         existing.setLastUpdated(LocalDate.now());
-        return progressRepo.save(existing);
+        StudentProgress saved = progressRepo.save(existing);
+        statsAggregator.invalidate(teacherIdOf(existing.getStudent()));
+        return saved;
     }
 
     public void deleteProgress(Long progressId, Long studentId) {
-        StudentProgress existing = progressRepo.findById(progressId)
+        StudentProgress existing = progressRepo.findWithStudentByProgressID(progressId)
                 .orElseThrow(() -> new RuntimeException("Progress not found."));
         if (!existing.getStudent().getStudentID().equals(studentId)) {
             throw new RuntimeException("Unauthorized delete attempt. Progress does not belong to the logged-in student.");
         }
         progressRepo.deleteById(progressId);
+        statsAggregator.invalidate(teacherIdOf(existing.getStudent()));
     }
 
+    private static Long teacherIdOf(Student student) {
+        return student.getTeacher() != null ? student.getTeacher().getId() : null;
+    }
+
+    @Transactional(readOnly = true)
     public StudentProgress getStudentProgressById(Long progressId) {
         return progressRepo.findById(progressId)
                 .orElseThrow(() -> new RuntimeException("Progress not found with ID " + progressId));
     }
 
     public StudentProgress updateStudentProgress(StudentProgress progress) {
-        return progressRepo.save(progress);
+        StudentProgress saved = progressRepo.save(progress);
+        statsAggregator.invalidateAll();
+        return saved;
     }
 }
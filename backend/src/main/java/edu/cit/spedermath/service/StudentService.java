@@ -1,12 +1,19 @@
 package edu.cit.spedermath.service;
 
+import edu.cit.spedermath.config.ReplicaRead;
+import edu.cit.spedermath.dto.StudentSummaryDTO;
 import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.StudentMedia;
 import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.repository.StudentMediaRepository;
 import edu.cit.spedermath.repository.StudentRepository;
 import edu.cit.spedermath.repository.TeacherRepository;
 import edu.cit.spedermath.util.JwtUtil;
 import edu.cit.spedermath.util.CryptoUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -22,6 +30,12 @@ public class StudentService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private StudentMediaRepository studentMediaRepository;
+
+    @Autowired
+    private MediaStore mediaStore;
+
     @Autowired
     private TeacherRepository teacherRepository;
 
@@ -31,6 +45,9 @@ public class StudentService {
     @Autowired
     private CryptoUtil cryptoUtil;
 
+    @Autowired
+    private LessonStatsAggregator statsAggregator;
+
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
 
     // --- Generate random password ---
@@ -76,11 +93,14 @@ public class StudentService {
                 hashedPassword,
                 birthdate,
                 LocalDate.now(),
-                profilePictureBytes,
                 teacher
         );
 
         Student saved = studentRepository.save(student);
+        if (profilePictureBytes != null) {
+            storeProfilePicture(saved, profilePictureBytes);
+            saved = studentRepository.save(saved);
+        }
         saved.setPassword(rawPassword);
 
         // You can return the raw password separately in your controller if needed
@@ -88,11 +108,13 @@ public class StudentService {
     }
 
     // --- Get student by username ---
+    @Transactional(readOnly = true)
     public Optional<Student> getStudentByUsername(String username) {
         return studentRepository.findByUsername(username);
     }
 
     // --- Get student by ID ---
+    @Transactional(readOnly = true)
     public Optional<Student> getStudentById(Long studentID) {
         return studentRepository.findById(studentID);
     }
@@ -122,54 +144,93 @@ public class StudentService {
         student.setFName(fname);
         student.setLName(lname);
         student.setUsername(username);
+        if (student.getTeacher() != null && !Objects.equals(student.getTeacher().getId(), teacherId)) {
+            // the student's progress moves to another teacher's stats
+            statsAggregator.invalidate(student.getTeacher().getId());
+            statsAggregator.invalidate(teacherId);
+        }
         student.setTeacher(teacher);
 
         if (profilePicture != null && !profilePicture.isEmpty()) {
-            student.setProfilePicture(profilePicture.getBytes());
+            storeProfilePicture(student, profilePicture.getBytes());
         }
 
         return studentRepository.save(student);
     }
 
+    // --- Store the picture (deduplicated by hash) and point the student's student_media row at it ---
+    private void storeProfilePicture(Student student, byte[] bytes) {
+        StudentMedia media = studentMediaRepository.findByStudentId(student.getStudentID())
+                .orElseGet(() -> new StudentMedia(student.getStudentID()));
+        media.setContentHash(mediaStore.put(bytes));
+        media.setUpdatedAt(LocalDateTime.now());
+        student.setProfileMediaId(studentMediaRepository.save(media).getMediaID());
+        student.setProfilePictureHash(media.getContentHash());
+    }
+
     // --- Delete student ---
+    @Transactional
     public void deleteStudent(Long studentID) {
         if (!studentRepository.existsById(studentID)) {
             throw new RuntimeException("Student not found.");
         }
+        Long teacherId = studentRepository.findTeacherIdByStudentId(studentID).orElse(null);
+        studentMediaRepository.deleteByStudentId(studentID);
         studentRepository.deleteById(studentID);
+        statsAggregator.invalidate(teacherId);
     }
 
-    // --- Get all students ---
+    // --- Get all students (teacher dashboard; tolerates replica lag) ---
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<Student> getAllStudents() {
         List<Student> students = studentRepository.findAll();
-        for (Student student : students) {
-            try {
-                String decrypted = cryptoUtil.decrypt(student.getPassword());
-                student.setPassword(decrypted);
-            } catch (Exception e) {
-                student.setPassword("Decryption error");
-            }
-        }
+        decryptPasswords(students);
         return students;
     }
 
+    // --- Roster page (projection: no picture bytes, no password decryption) ---
+    @Transactional(readOnly = true)
+    public Page<StudentSummaryDTO> getRosterPage(Long teacherId, Pageable pageable) {
+        return studentRepository.findRosterByTeacherId(teacherId, pageable);
+    }
+
+    // --- Decrypted password for one of the teacher's students, on explicit request ---
+    @Transactional(readOnly = true)
+    public Optional<String> getDecryptedPassword(Long studentId, Long teacherId) {
+        return studentRepository.findPasswordByIdAndTeacherId(studentId, teacherId)
+                .map(cryptoUtil::decrypt);
+    }
+
+    // --- Profile picture hash only (ETag), without reading the bytes ---
+    @Transactional(readOnly = true)
+    public Optional<String> getProfilePictureHash(Long studentId) {
+        return studentMediaRepository.findContentHashByStudentId(studentId);
+    }
+
+    // --- Profile picture content by hash (from getProfilePictureHash) ---
+    public Optional<Resource> getProfilePicture(String hash) {
+        return mediaStore.get(hash);
+    }
+
     // --- Get all students by teacher ---
     @Transactional(readOnly = true)
     public List<Student> getStudentsByTeacher(Teacher teacher) {
         List<Student> students = studentRepository.findByTeacher(teacher);
+        decryptPasswords(students);
+        return students;
+    }
 
-        for (Student student : students) {
-            try {
-                String decrypted = cryptoUtil.decrypt(student.getPassword());
-                student.setPassword(decrypted);
-            } catch (Exception e) {
-                student.setPassword("Decryption error");
-            }
+    // --- Swap stored ciphertexts for plaintext in one bulk call ---
+    private void decryptPasswords(List<Student> students) {
+        List<String> plain = cryptoUtil.decryptAll(students.stream().map(Student::getPassword).toList());
+        for (int i = 0; i < students.size(); i++) {
+            String decrypted = plain.get(i);
+            students.get(i).setPassword(decrypted != null ? decrypted : "Decryption error");
         }
-
-        return students;
     }
     // --- Student login ---
+    @Transactional(readOnly = true)
     public Map<String, String> loginStudent(String username, String password) {
         Optional<Student> studentOptional = studentRepository.findByUsername(username);
         Map<String, String> response = new HashMap<>();
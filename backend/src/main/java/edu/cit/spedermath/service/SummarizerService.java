@@ -0,0 +1,447 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.dto.SummarizeReq;
+import edu.cit.spedermath.util.HashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import okhttp3.*;
+import okio.BufferedSource;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat-completions calls behind /api/summarize, off the request thread. All calls share one OkHttpClient,
+ * so connections to the LLM host are pooled and kept alive. At most {@code app.summarizer.max-concurrency}
+ * calls run at once with up to {@code app.summarizer.queue-capacity} more waiting; beyond that
+ * {@link #summarize} rejects immediately instead of queueing without bound. Successful answers are cached
+ * by a hash of (model, max tokens, prompt), so a repeated prompt never reaches the LLM twice, and
+ * identical requests that arrive while the first is still running wait for that same call.
+ */
+@Service
+public class SummarizerService {
+
+    public static final String STOP_SEQUENCE = "</assessment>";
+    private static final String UPSTREAM_ERROR_PREFIX = "OpenAI API error: ";
+    private static final String NO_RESPONSE = "No response from OpenAI.";
+    public static final String MISSING_KEY = "Missing OpenAI API key. Add it in application.properties.";
+
+    /** What is sent upstream; built from the client's SummarizeReq. */
+    public record Request(String text, int maxTokens, String model) {
+
+        public static Request of(SummarizeReq req) {
+            String text = req.text() != null ? req.text() : "";
+            int maxWords = req.maxWords() != null ? req.maxWords() : 180;
+            boolean useGpt = req.useGpt() != null && req.useGpt();
+            // Map words -> tokens (roughly 1 word ≈ 1.3 tokens) plus a little buffer, clamped for small/mini models
+            int maxTokens = Math.max(256, Math.min(2048, (int) Math.round(maxWords * 1.3) + 50));
+            return new Request(text, maxTokens, useGpt ? "gpt-4o-mini" : "gpt-5-nano");
+        }
+
+        /** Same key for requests that would produce the same completion (line endings and outer whitespace ignored). */
+        public String cacheKey() {
+            return HashUtil.sha256Hex(model + "\n" + maxTokens + "\n" + text.strip().replace("\r\n", "\n"));
+        }
+    }
+
+    /** Receives a streamed summary; called on an OkHttp thread. If onChunk throws, the upstream call is cancelled. */
+    public interface StreamListener {
+        void onChunk(String text) throws IOException;
+
+        void onComplete() throws IOException;
+
+        /** Transport failure or upstream HTTP error (the latter carries the usual "OpenAI API error" text). */
+        void onError(String message);
+    }
+
+    private record CachedSummary(String summary, long storedAt) {}
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final String apiKey;
+    private final HttpUrl completionsUrl;
+    private final OkHttpClient client;
+    private final Semaphore admission;
+    private final long cacheTtlNanos;
+    private final Map<String, CachedSummary> cache;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter requests;
+    private final Counter coalesced;
+    private final Counter cacheHits;
+    private final Counter rejected;
+    private final Timer upstreamTimer;
+
+    public SummarizerService(@Value("${openai.api.key:}") String apiKey,
+                             @Value("${app.summarizer.base-url:https://api.openai.com}") String baseUrl,
+                             @Value("${app.summarizer.max-concurrency:16}") int maxConcurrency,
+                             @Value("${app.summarizer.queue-capacity:64}") int queueCapacity,
+                             @Value("${app.summarizer.connect-timeout:PT25S}") Duration connectTimeout,
+                             @Value("${app.summarizer.read-timeout:PT60S}") Duration readTimeout,
+                             @Value("${app.summarizer.cache.max-entries:1000}") int cacheMaxEntries,
+                             @Value("${app.summarizer.cache.ttl:PT6H}") Duration cacheTtl,
+                             MeterRegistry meterRegistry) {
+        this.apiKey = apiKey;
+        this.completionsUrl = HttpUrl.get(baseUrl).newBuilder().addPathSegments("v1/chat/completions").build();
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxConcurrency);
+        dispatcher.setMaxRequestsPerHost(maxConcurrency);
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxConcurrency, 5, TimeUnit.MINUTES))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
+        this.admission = new Semaphore(maxConcurrency + queueCapacity);
+
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSummary> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
+
+        requests = Counter.builder("spedermath.summarizer.requests").register(meterRegistry);
+        coalesced = Counter.builder("spedermath.summarizer.coalesced")
+                .description("Requests that joined an identical in-flight call, i.e. upstream calls saved")
+                .register(meterRegistry);
+        Gauge.builder("spedermath.summarizer.coalesce.rate", coalesced,
+                        c -> requests.count() == 0 ? 0 : c.count() / requests.count())
+                .register(meterRegistry);
+        cacheHits = Counter.builder("spedermath.summarizer.cache.hits").register(meterRegistry);
+        rejected = Counter.builder("spedermath.summarizer.rejected").register(meterRegistry);
+        upstreamTimer = Timer.builder("spedermath.summarizer.upstream").register(meterRegistry);
+        Gauge.builder("spedermath.summarizer.pending", admission, a -> maxConcurrency + queueCapacity - a.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    /** False for the error texts {@link #summarize} completes with instead of a summary. */
+    public static boolean isSummary(String text) {
+        return text != null && !text.startsWith(UPSTREAM_ERROR_PREFIX) && !text.equals(NO_RESPONSE) && !text.equals(MISSING_KEY);
+    }
+
+    /**
+     * The summary for {@code request}, completed on an OkHttp thread (or right away from the cache).
+     * An upstream HTTP error completes normally with an error text, as the endpoint always answered; only
+     * real summaries are cached. Concurrent calls with the same cache key share one upstream call, and
+     * each caller gets its own future: cancelling it detaches that caller, and the upstream call is
+     * cancelled once every caller has gone.
+     *
+     * @throws RejectedExecutionException when max-concurrency + queue-capacity calls are already pending
+     */
+    public CompletableFuture<String> summarize(Request request) {
+        requests.increment();
+        String key = request.cacheKey();
+        Optional<String> cached = cached(key);
+        if (cached.isPresent()) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        while (true) {
+            Flight flight = inFlight.get(key);
+            if (flight != null) {
+                if (flight.join()) {
+                    coalesced.increment();
+                    return flight.waiter();
+                }
+                inFlight.remove(key, flight); // every caller left; start over
+                continue;
+            }
+            Flight mine = new Flight(key);
+            if (inFlight.putIfAbsent(key, mine) != null) continue;
+            if (!admission.tryAcquire()) {
+                RejectedExecutionException rejection = new RejectedExecutionException("Summarizer is at capacity");
+                mine.upstream.completeExceptionally(rejection); // anyone who joined in between is rejected too
+                rejected.increment();
+                throw rejection;
+            }
+            mine.start(request);
+            return mine.waiter();
+        }
+    }
+
+    /**
+     * One upstream call shared by every concurrent caller with the same key. Callers wait on copies of
+     * {@code settled}, which completes only after the flight has left {@link #inFlight} and given back its
+     * permit, so a caller that reacts to the result can never join this finished flight again.
+     */
+    private final class Flight {
+        final CompletableFuture<String> upstream = new CompletableFuture<>();
+        private final CompletableFuture<String> settled;
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile Call call;
+
+        Flight(String key) {
+            settled = upstream.whenComplete((summary, e) -> {
+                inFlight.remove(key, this);
+                if (call == null) return; // rejected before it started
+                admission.release();
+                if (upstream.isCancelled()) call.cancel();
+            });
+        }
+
+        /** False once every earlier caller has cancelled, i.e. the upstream call is being cancelled. */
+        boolean join() {
+            int n;
+            do {
+                n = waiters.get();
+                if (n == 0) return false;
+            } while (!waiters.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        CompletableFuture<String> waiter() {
+            CompletableFuture<String> waiter = settled.copy();
+            waiter.whenComplete((summary, e) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) upstream.cancel(true);
+            });
+            return waiter;
+        }
+
+        void start(Request request) {
+            String key = request.cacheKey();
+            Timer.Sample sample = Timer.start();
+            call = client.newCall(upstreamRequest(request, false));
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call c, IOException e) {
+                    upstream.completeExceptionally(e);
+                }
+
+                @Override
+                public void onResponse(Call c, Response response) {
+                    try (response) {
+                        sample.stop(upstreamTimer);
+                        String body = response.body() != null ? response.body().string() : "";
+                        if (!response.isSuccessful()) {
+                            upstream.complete(UPSTREAM_ERROR_PREFIX + response.code() + " " + response.message() + " " + body);
+                            return;
+                        }
+                        String content = parseContent(body);
+                        if (content == null) {
+                            upstream.complete(NO_RESPONSE);
+                            return;
+                        }
+                        store(key, content);
+                        upstream.complete(content);
+                    } catch (Exception e) {
+                        upstream.completeExceptionally(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Streams the summary for {@code request}: each upstream delta goes to the listener as soon as it is
+     * read, and nothing but the current line is held in memory. {@link #STOP_SEQUENCE} is also enforced
+     * here, because not every model honours {@code stop} and the tag can be split across deltas; once it
+     * shows up the stream completes and the upstream call is cancelled. A cached summary is replayed as a
+     * single chunk. Streamed text is not cached.
+     *
+     * @return cancels the upstream call, e.g. when the client disconnects
+     * @throws RejectedExecutionException when max-concurrency + queue-capacity calls are already pending
+     */
+    public Runnable stream(Request request, StreamListener listener) {
+        Optional<String> cached = cached(request.cacheKey());
+        if (cached.isPresent()) {
+            cacheHits.increment();
+            try {
+                listener.onChunk(cached.get());
+                listener.onComplete();
+            } catch (IOException ignored) {
+                // client already gone
+            }
+            return () -> {};
+        }
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Summarizer is at capacity");
+        }
+
+        Call call = client.newCall(upstreamRequest(request, true));
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) admission.release();
+        };
+        Timer.Sample sample = Timer.start();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                release.run();
+                if (!c.isCanceled()) listener.onError("Internal error: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        listener.onError(UPSTREAM_ERROR_PREFIX + response.code() + " " + response.message() + " "
+                                + (response.body() != null ? response.body().string() : ""));
+                        return;
+                    }
+                    forwardDeltas(response.body().source(), listener);
+                    listener.onComplete();
+                } catch (Exception e) {
+                    if (!c.isCanceled()) listener.onError("Internal error: " + e.getMessage());
+                } finally {
+                    // closing an unread body (stop tag seen, listener failed) drops the upstream stream
+                    sample.stop(upstreamTimer);
+                    release.run();
+                }
+            }
+        });
+        return () -> {
+            call.cancel();
+            release.run();
+        };
+    }
+
+    /** Reads "data: {...}" lines until [DONE], the end of the body, or the stop sequence. */
+    private static void forwardDeltas(BufferedSource source, StreamListener listener) throws IOException {
+        StopSequenceFilter filter = new StopSequenceFilter(STOP_SEQUENCE);
+        String line;
+        while (!filter.isStopped() && (line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) continue; // blank separators and ": keep-alive" comments
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) break;
+            String delta = parseDelta(data);
+            if (delta == null || delta.isEmpty()) continue;
+            String ready = filter.accept(delta);
+            if (!ready.isEmpty()) listener.onChunk(ready);
+        }
+        String tail = filter.flush();
+        if (!tail.isEmpty()) listener.onChunk(tail);
+    }
+
+    private static String parseDelta(String data) {
+        JSONArray choices = new JSONObject(data).optJSONArray("choices");
+        if (choices == null || choices.length() == 0) return null;
+        JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+        return delta != null ? delta.optString("content", "") : null;
+    }
+
+    /**
+     * Passes text through until the stop sequence appears, holding back at most stop.length() - 1 chars:
+     * the tail that could still turn out to be the start of the stop sequence.
+     */
+    static final class StopSequenceFilter {
+        private final String stop;
+        private final StringBuilder pending = new StringBuilder();
+        private boolean stopped;
+
+        StopSequenceFilter(String stop) {
+            this.stop = stop;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        /** Text that is safe to emit now. */
+        String accept(String chunk) {
+            if (stopped) return "";
+            pending.append(chunk);
+            int at = pending.indexOf(stop);
+            if (at >= 0) {
+                stopped = true;
+                String out = pending.substring(0, at);
+                pending.setLength(0);
+                return out;
+            }
+            int keep = Math.min(stop.length() - 1, pending.length());
+            while (keep > 0 && !stop.startsWith(pending.substring(pending.length() - keep))) keep--;
+            String out = pending.substring(0, pending.length() - keep);
+            pending.delete(0, pending.length() - keep);
+            return out;
+        }
+
+        /** Whatever was held back, once the stream has ended without the stop sequence. */
+        String flush() {
+            String out = stopped ? "" : pending.toString();
+            pending.setLength(0);
+            return out;
+        }
+    }
+
+    private Optional<String> cached(String key) {
+        synchronized (cache) {
+            CachedSummary hit = cache.get(key);
+            if (hit == null) return Optional.empty();
+            if (System.nanoTime() - hit.storedAt() > cacheTtlNanos) {
+                cache.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(hit.summary());
+        }
+    }
+
+    private void store(String key, String summary) {
+        synchronized (cache) {
+            cache.put(key, new CachedSummary(summary, System.nanoTime()));
+        }
+    }
+
+    private okhttp3.Request upstreamRequest(Request request, boolean stream) {
+        JSONObject userMessage = new JSONObject()
+                .put("role", "user")
+                .put("content", request.text());
+
+        // Encourage clean endings with the closing tag and avoid mid-sentence cutoffs
+        JSONObject payload = new JSONObject()
+                .put("model", request.model())
+                .put("messages", new JSONArray().put(userMessage))
+                .put("temperature", 0.2)
+                .put("max_tokens", request.maxTokens())
+                .put("stop", new JSONArray().put(STOP_SEQUENCE))
+                .put("stream", stream);
+
+        return new okhttp3.Request.Builder()
+                .url(completionsUrl)
+                .header("Authorization", "Bearer " + apiKey)
+                .post(RequestBody.create(payload.toString(), JSON))
+                .build();
+    }
+
+    private static String parseContent(String body) {
+        JSONArray choices = new JSONObject(body).optJSONArray("choices");
+        if (choices != null && choices.length() > 0) {
+            JSONObject msg = choices.getJSONObject(0).optJSONObject("message");
+            if (msg != null) {
+                String content = msg.optString("content", "").trim();
+                if (!content.isEmpty()) return content;
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,13 @@
 package edu.cit.spedermath.service;
 
 import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.model.TeacherMedia;
+import edu.cit.spedermath.repository.TeacherMediaRepository;
 import edu.cit.spedermath.repository.TeacherRepository;
 import edu.cit.spedermath.util.JwtUtil;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class TeacherService {
@@ -21,6 +25,12 @@ public class TeacherService {
     @Autowired
     private TeacherRepository teacherRepository;
 
+    @Autowired
+    private TeacherMediaRepository teacherMediaRepository;
+
+    @Autowired
+    private MediaStore mediaStore;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -36,7 +46,12 @@ public class TeacherService {
         "avatars/profile_woman3.png"
     );
 
-    private byte[] loadResourceBytes(String path) {
+    // read once; registration just picks one
+    private static final List<byte[]> DEFAULT_AVATAR_BYTES = DEFAULT_AVATARS.stream()
+            .map(TeacherService::loadResourceBytes)
+            .toList();
+
+    private static byte[] loadResourceBytes(String path) {
         try (var is = new org.springframework.core.io.ClassPathResource(path).getInputStream()) {
             return is.readAllBytes();
         } catch (Exception e) {
@@ -45,10 +60,24 @@ public class TeacherService {
     }
 
     private byte[] randomDefaultAvatarBytes() {
-        var p = DEFAULT_AVATARS.get(new java.util.Random().nextInt(DEFAULT_AVATARS.size()));
-        return loadResourceBytes(p);
+        return DEFAULT_AVATAR_BYTES.get(ThreadLocalRandom.current().nextInt(DEFAULT_AVATAR_BYTES.size()));
+    }
+
+    /**
+     * Stores the photo (default avatars are stored once, by hash) and points the teacher's
+     * teacher_media row at it; the teacher must already have an id.
+     */
+    private void storePhoto(Teacher t, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return;
+        TeacherMedia media = teacherMediaRepository.findByTeacherId(t.getId())
+                .orElseGet(() -> new TeacherMedia(t.getId()));
+        media.setContentHash(mediaStore.put(bytes));
+        media.setUpdatedAt(LocalDateTime.now());
+        t.setPhotoMediaId(teacherMediaRepository.save(media).getMediaID());
+        t.setPhotoHash(media.getContentHash());
     }
 
+    @Transactional
     public String registerTeacher(String fname, String lname, String email, String name,
                                   String password, String photoBase64) {
         String normalizedEmail = email.toLowerCase().trim();
@@ -68,10 +97,9 @@ public class TeacherService {
             photoBytes = randomDefaultAvatarBytes();
         }
 
-        Teacher teacher = new Teacher(fname, lname, name, normalizedEmail, hashedPassword, LocalDateTime.now());
-        teacher.setPhotoBlob(photoBytes);
-
-        teacherRepository.save(teacher);
+        Teacher teacher = teacherRepository.save(
+                new Teacher(fname, lname, name, normalizedEmail, hashedPassword, LocalDateTime.now()));
+        storePhoto(teacher, photoBytes);
         return "Registration successful!";
     }
 
@@ -82,9 +110,20 @@ public class TeacherService {
             ? photoBase64.substring(photoBase64.indexOf(',') + 1)
             : photoBase64;
         byte[] bytes = java.util.Base64.getDecoder().decode(b64);
-        t.setPhotoBlob(bytes);
+        storePhoto(t, bytes);
         }
 
+    /** Current photo hash, without loading the blob. */
+    @Transactional(readOnly = true)
+    public Optional<String> getPhotoHash(Long teacherId) {
+        return teacherRepository.findPhotoHashById(teacherId);
+    }
+
+    /** Photo content by hash (from getPhotoHash). */
+    public Optional<Resource> getPhoto(String hash) {
+        return mediaStore.get(hash);
+    }
+
 
     public Map<String, String> loginTeacher(String email, String password) {
         String normalizedEmail = email.toLowerCase().trim();
@@ -123,6 +162,7 @@ public class TeacherService {
                 "Connection failed!";
     }
 
+    @Transactional(readOnly = true)
     public Optional<Teacher> getTeacherByEmail(String email) {
         return teacherRepository.findByEmail(email.toLowerCase().trim());
     }
@@ -139,14 +179,17 @@ public class TeacherService {
         return "Teacher not found!";
     }
 
+    @Transactional(readOnly = true)
     public Optional<Teacher> getTeacherById(Long id) {
         return teacherRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Teacher> findById(Long id) {
         return teacherRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Teacher> findByEmail(String email) {
         return teacherRepository.findByEmail(email.toLowerCase());
     }
@@ -179,7 +222,7 @@ public class TeacherService {
         );
         t.setGoogleId(googleId);
 
-        // you can set a default photo or leave photoBlob null
+        // you can set a default photo or leave the photo empty
         teacherRepository.save(t);
         return t;
     }
@@ -0,0 +1,88 @@
+package edu.cit.spedermath.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-side thumbnails for profile pictures. Each (content hash, size) is rendered once
+ * and kept in a bounded LRU, so roster pages can request small images on every refresh.
+ */
+@Service
+public class ThumbnailService {
+
+    /** Square edge lengths (px) clients may ask for. */
+    public static final Set<Integer> SIZES = Set.of(64, 128, 256);
+
+    private final Map<String, byte[]> cache;
+
+    public ThumbnailService(@Value("${app.thumbnails.max-entries:500}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * PNG thumbnail that fits in size x size, keyed by the original's content hash.
+     * Returns the original bytes if the format can't be decoded (e.g. WEBP) or is already small enough.
+     */
+    public byte[] thumbnail(String contentHash, Resource original, int size) {
+        String key = contentHash + ":" + size;
+        synchronized (cache) {
+            byte[] cached = cache.get(key);
+            if (cached != null) return cached;
+        }
+        byte[] rendered;
+        try {
+            rendered = render(original.getContentAsByteArray(), size); // original is read only on a miss
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (cache) {
+            cache.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    private static byte[] render(byte[] original, int size) {
+        try {
+            BufferedImage src = ImageIO.read(new ByteArrayInputStream(original));
+            if (src == null) return original;
+
+            double scale = Math.min((double) size / src.getWidth(), (double) size / src.getHeight());
+            if (scale >= 1.0) return original;
+
+            int w = Math.max(1, (int) Math.round(src.getWidth() * scale));
+            int h = Math.max(1, (int) Math.round(src.getHeight() * scale));
+            BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = dst.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(src, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(dst, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            return original;
+        }
+    }
+}
@@ -7,9 +7,13 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
 
 @Component
 public class CryptoUtil {
@@ -20,9 +24,25 @@ public class CryptoUtil {
     private static final int IV_LENGTH_BYTES = 12; // recommended for GCM
     private static final SecureRandom secureRandom = new SecureRandom();
 
+    /**
+     * One Cipher per thread: getInstance does a provider lookup on every call, and a Cipher is not
+     * thread-safe. Each use re-inits with its own IV, so no state carries over between calls.
+     */
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES_GCM_NO_PADDING);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(AES_GCM_NO_PADDING + " not available", e);
+        }
+    });
+
     @Value("${app.crypto.key-base64}")
     private String keyBase64;
 
+    /** decryptAll spreads lists at least this long across the common fork-join pool. */
+    @Value("${app.crypto.parallel-threshold:256}")
+    private int parallelThreshold = 256;
+
     private SecretKeySpec keySpec;
 
     @PostConstruct
@@ -39,20 +59,18 @@ public class CryptoUtil {
 
     public String encrypt(String plaintext) {
         try {
+            byte[] plain = plaintext.getBytes(StandardCharsets.UTF_8);
             byte[] iv = new byte[IV_LENGTH_BYTES];
             secureRandom.nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance(AES_GCM_NO_PADDING);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
-
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes("UTF-8"));
-
-            // store iv + ciphertext together
-            ByteBuffer bb = ByteBuffer.allocate(iv.length + ciphertext.length);
-            bb.put(iv);
-            bb.put(ciphertext);
-            return Base64.getEncoder().encodeToString(bb.array());
+            Cipher cipher = CIPHER.get();
+
+            // store iv + ciphertext together, written straight into one buffer
+            byte[] out = new byte[IV_LENGTH_BYTES + GCM_TAG_LENGTH_BITS / 8 + plain.length];
+            System.arraycopy(iv, 0, out, 0, IV_LENGTH_BYTES);
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, out, 0, IV_LENGTH_BYTES));
+            int written = cipher.doFinal(plain, 0, plain.length, out, IV_LENGTH_BYTES);
+            if (IV_LENGTH_BYTES + written != out.length) out = Arrays.copyOf(out, IV_LENGTH_BYTES + written);
+            return Base64.getEncoder().encodeToString(out);
         } catch (Exception e) {
             throw new RuntimeException("Encryption failed", e);
         }
@@ -61,22 +79,30 @@ public class CryptoUtil {
     public String decrypt(String base64IvCipher) {
         try {
             byte[] ivCipher = Base64.getDecoder().decode(base64IvCipher);
-            ByteBuffer bb = ByteBuffer.wrap(ivCipher);
-
-            byte[] iv = new byte[IV_LENGTH_BYTES];
-            bb.get(iv);
-
-            byte[] ciphertext = new byte[bb.remaining()];
-            bb.get(ciphertext);
-
-            Cipher cipher = Cipher.getInstance(AES_GCM_NO_PADDING);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, spec);
-
-            byte[] plain = cipher.doFinal(ciphertext);
-            return new String(plain, "UTF-8");
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, ivCipher, 0, IV_LENGTH_BYTES));
+            byte[] plain = cipher.doFinal(ivCipher, IV_LENGTH_BYTES, ivCipher.length - IV_LENGTH_BYTES);
+            return new String(plain, StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("Decryption failed", e);
         }
     }
+
+    /**
+     * Decrypts a whole roster's passwords, in order. An entry that fails to decrypt comes back as
+     * {@code null} instead of failing the batch. Long lists are split across cores.
+     */
+    public List<String> decryptAll(List<String> base64IvCiphers) {
+        String[] out = new String[base64IvCiphers.size()];
+        IntStream indexes = IntStream.range(0, out.length);
+        if (out.length >= parallelThreshold) indexes = indexes.parallel();
+        indexes.forEach(i -> {
+            try {
+                out[i] = decrypt(base64IvCiphers.get(i));
+            } catch (RuntimeException e) {
+                out[i] = null;
+            }
+        });
+        return Arrays.asList(out);
+    }
 }
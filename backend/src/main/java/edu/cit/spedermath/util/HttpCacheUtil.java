@@ -0,0 +1,24 @@
+package edu.cit.spedermath.util;
+
+/** Conditional-GET helpers for endpoints that know their ETag before loading the body. */
+public final class HttpCacheUtil {
+
+    private HttpCacheUtil() {}
+
+    /** Quoted strong ETag for a content hash. */
+    public static String etag(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    /** True if an If-None-Match header value (list, weak or "*") matches the given quoted ETag. */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.cit.spedermath.util;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Helpers for profile images. */
+public final class ImageUtil {
+
+    private ImageUtil() {}
+
+    /** Sniff the image format from its magic bytes; don't assume PNG. */
+    public static MediaType detectImageType(byte[] b) {
+        if (b != null && b.length >= 8 &&
+            (b[0] & 0xFF) == 0x89 && b[1] == 0x50 && b[2] == 0x4E && b[3] == 0x47) {
+            return MediaType.IMAGE_PNG; // PNG
+        }
+        if (b != null && b.length >= 3 &&
+            (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8) {
+            return MediaType.IMAGE_JPEG; // JPEG
+        }
+        if (b != null && b.length >= 12 &&
+            b[0] == 'R' && b[1] == 'I' && b[2] == 'F' &&
+            b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return MediaType.parseMediaType("image/webp"); // WEBP
+        }
+        if (b != null && b.length >= 6 &&
+            b[0] == 'G' && b[1] == 'I' && b[2] == 'F') {
+            return MediaType.IMAGE_GIF;
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /** Same, reading only the first bytes of the resource. */
+    public static MediaType detectImageType(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return detectImageType(in.readNBytes(12));
+        } catch (IOException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
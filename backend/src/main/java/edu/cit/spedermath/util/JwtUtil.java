@@ -1,6 +1,8 @@
 package edu.cit.spedermath.util;
 
+import edu.cit.spedermath.security.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -8,6 +10,7 @@ import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import java.security.Key;
 import java.util.Date;
@@ -24,10 +27,18 @@ public class JwtUtil {
     @Value("${jwt.expirationMs}")
     private long expirationMs;
 
-    private Key signingKey() {
+    private Key signingKey;
+    private JwtParser parser;
+
+    /** Decode the secret and build the (immutable, thread-safe) parser once instead of per call. */
+    @PostConstruct
+    public void init() {
         // secret should be Base64-encoded; 256-bit+ recommended
         byte[] keyBytes = Decoders.BASE64.decode(secretBase64);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     /* ====================== Generate ====================== */
@@ -58,12 +69,36 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /* ====================== Validate / Extract ====================== */
 
+    /** Verifies the token once and returns everything the app reads from it. Throws if invalid/expired. */
+    public JwtPrincipal parsePrincipal(String token) {
+        return JwtPrincipal.from(getAllClaims(token));
+    }
+
+    /**
+     * Principal for the current request. Reuses the one {@code JwtAuthenticationFilter} already parsed;
+     * otherwise parses the bearer token once and keeps it on the request. Null if missing/invalid.
+     */
+    public JwtPrincipal resolvePrincipal(HttpServletRequest request) {
+        Object cached = request.getAttribute(JwtPrincipal.REQUEST_ATTRIBUTE);
+        if (cached instanceof JwtPrincipal principal) return principal;
+
+        String token = extractToken(request);
+        if (token == null) return null;
+        try {
+            JwtPrincipal principal = parsePrincipal(token);
+            request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
+            return principal;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /** Alias used by your filter */
     public boolean validateToken(String token) {
         return isTokenValid(token);
@@ -87,13 +122,9 @@ public class JwtUtil {
         return role == null ? null : String.valueOf(role);
     }
 
-     public Long extractTeacherId(String token) {
+    public Long extractTeacherId(String token) {
         try {
-            Claims claims = getAllClaims(token);
-            Object id = claims.get("tid");
-            if (id == null) id = claims.get("teacherId");
-            if (id == null) id = claims.get("id");
-            return (id != null) ? Long.parseLong(id.toString()) : null;
+            return parsePrincipal(token).teacherId();
         } catch (Exception e) {
             return null;
         }
@@ -101,22 +132,13 @@ public class JwtUtil {
 
     /** Supports both "sid" and legacy "studentId" */
     public Long extractStudentId(String token) {
-        Claims claims = getAllClaims(token);
-        Object sid = claims.get("sid");
-        if (sid == null) sid = claims.get("studentId"); // fallback
-        if (sid == null) return null;
-        if (sid instanceof Number) return ((Number) sid).longValue();
-        return Long.parseLong(String.valueOf(sid));
+        return parsePrincipal(token).studentId();
     }
 
     /* ====================== Helpers ====================== */
 
     private Claims getAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private <T> T extractClaim(String token, Function<Claims, T> resolver) {
@@ -0,0 +1,174 @@
+package edu.cit.spedermath.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+/**
+ * Print-ready A4 sheet of labelled QR login codes, 4 x 5 per page.
+ * QR modules are drawn as vector rectangles and labels use the standard Helvetica font, so the PDF
+ * needs no raster or font stack on the server. Tiles are encoded in parallel; pages are assembled in order.
+ */
+public final class QrSheetPdf {
+
+    /** One tile: a QR code and the name printed under it. */
+    public record Entry(String label, String url) {}
+
+    static final int COLS = 4;
+    static final int ROWS = 5;
+    static final int PER_PAGE = COLS * ROWS;
+
+    private static final int PARALLEL_THRESHOLD = 8;
+    private static final float PAGE_W = 595f, PAGE_H = 842f, MARGIN = 36f;
+    private static final float TILE_W = (PAGE_W - 2 * MARGIN) / COLS;
+    private static final float TILE_H = (PAGE_H - 2 * MARGIN) / ROWS;
+    private static final float QR_SIZE = 112f, LABEL_SIZE = 9f;
+    private static final int MAX_LABEL_CHARS = 26;
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+    private static final Map<EncodeHintType, Object> QR_HINTS = Map.of(
+            EncodeHintType.MARGIN, 0,
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.CHARACTER_SET, "UTF-8");
+
+    private QrSheetPdf() {}
+
+    public static byte[] render(List<Entry> entries) {
+        IntStream indexes = IntStream.range(0, entries.size());
+        if (entries.size() >= PARALLEL_THRESHOLD) indexes = indexes.parallel();
+        List<byte[]> tiles = indexes.mapToObj(i -> tile(entries.get(i), i % PER_PAGE)).toList();
+
+        int pageCount = Math.max(1, (tiles.size() + PER_PAGE - 1) / PER_PAGE);
+        List<byte[]> contents = new ArrayList<>(pageCount);
+        for (int p = 0; p < pageCount; p++) {
+            ByteArrayOutputStream page = new ByteArrayOutputStream();
+            for (byte[] tile : tiles.subList(p * PER_PAGE, Math.min(tiles.size(), (p + 1) * PER_PAGE))) {
+                page.writeBytes(tile);
+            }
+            contents.add(deflate(page.toByteArray()));
+        }
+        return assemble(contents);
+    }
+
+    /** Content-stream fragment for one tile at its slot on the page. */
+    private static byte[] tile(Entry entry, int slot) {
+        BitMatrix qr;
+        try {
+            qr = new QRCodeWriter().encode(entry.url(), BarcodeFormat.QR_CODE, 1, 1, QR_HINTS);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("URL does not fit in a QR code: " + entry.url(), e);
+        }
+        float left = MARGIN + (slot % COLS) * TILE_W;
+        float top = PAGE_H - MARGIN - (slot / COLS) * TILE_H;
+        float qrX = left + (TILE_W - QR_SIZE) / 2;
+        float qrY = top - 12 - QR_SIZE;
+        int n = qr.getWidth();
+        float module = QR_SIZE / n;
+
+        StringBuilder ops = new StringBuilder("0 g\n");
+        for (int y = 0; y < n; y++) {
+            float rowY = qrY + (n - 1 - y) * module;
+            for (int x = 0; x < n; ) {
+                if (!qr.get(x, y)) { x++; continue; }
+                int run = x;
+                while (run < n && qr.get(run, y)) run++;
+                ops.append(num(qrX + x * module)).append(' ').append(num(rowY)).append(' ')
+                        .append(num((run - x) * module)).append(' ').append(num(module)).append(" re\n");
+                x = run;
+            }
+        }
+        ops.append("f\n")
+                .append("BT /F1 ").append(num(LABEL_SIZE)).append(" Tf ")
+                .append(num(qrX)).append(' ').append(num(qrY - LABEL_SIZE - 6)).append(" Td (");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(ops.toString().getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(pdfString(entry.label()));
+        out.writeBytes(") Tj ET\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    /** Label bytes for a literal string: WinAnsi, truncated, with (, ) and \ escaped. */
+    private static byte[] pdfString(String label) {
+        String text = label == null ? "" : label.strip();
+        if (text.length() > MAX_LABEL_CHARS) text = text.substring(0, MAX_LABEL_CHARS - 1) + "\u2026";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte b : text.getBytes(WIN_ANSI)) {
+            if (b == '(' || b == ')' || b == '\\') out.write('\\');
+            if (b == '\n' || b == '\r') b = ' ';
+            out.write(b);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        byte[] buf = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buf, 0, deflater.deflate(buf));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /** Objects: 1 catalog, 2 pages, 3 font, then a page and its content stream per page. */
+    private static byte[] assemble(List<byte[]> contents) {
+        int objectCount = 3 + 2 * contents.size();
+        long[] offsets = new long[objectCount + 1];
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        ascii(pdf, "%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+
+        StringBuilder kids = new StringBuilder();
+        for (int p = 0; p < contents.size(); p++) kids.append(4 + 2 * p).append(" 0 R ");
+
+        offsets[1] = pdf.size();
+        ascii(pdf, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = pdf.size();
+        ascii(pdf, "2 0 obj\n<< /Type /Pages /Kids [" + kids.toString().strip() + "] /Count " + contents.size() + " >>\nendobj\n");
+        offsets[3] = pdf.size();
+        ascii(pdf, "3 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        for (int p = 0; p < contents.size(); p++) {
+            int pageObj = 4 + 2 * p;
+            byte[] stream = contents.get(p);
+            offsets[pageObj] = pdf.size();
+            ascii(pdf, pageObj + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + num(PAGE_W) + " " + num(PAGE_H)
+                    + "] /Resources << /Font << /F1 3 0 R >> >> /Contents " + (pageObj + 1) + " 0 R >>\nendobj\n");
+            offsets[pageObj + 1] = pdf.size();
+            ascii(pdf, (pageObj + 1) + " 0 obj\n<< /Length " + stream.length + " /Filter /FlateDecode >>\nstream\n");
+            pdf.writeBytes(stream);
+            ascii(pdf, "\nendstream\nendobj\n");
+        }
+
+        long xref = pdf.size();
+        StringBuilder table = new StringBuilder("xref\n0 ").append(objectCount + 1).append("\n0000000000 65535 f \n");
+        for (int i = 1; i <= objectCount; i++) table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets[i]));
+        table.append("trailer\n<< /Size ").append(objectCount + 1).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        ascii(pdf, table.toString());
+        return pdf.toByteArray();
+    }
+
+    private static void ascii(ByteArrayOutputStream out, String s) {
+        out.writeBytes(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String num(float v) {
+        return String.format(Locale.ROOT, "%.2f", v);
+    }
+}
@@ -0,0 +1,86 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.dto.AttemptHistoryDTO;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.StudentAttempt;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building AttemptHistoryDTOs: the previous entity-graph mapping lambda in StudentAttemptService vs. the
+ * per-row constructor call Hibernate makes for the {@code SELECT new AttemptHistoryDTO(...)} projections.
+ * The database side (no entity hydration, no persistence-context entries) is not measured here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttemptMappingBenchmark {
+
+    /** Rows per call (recent feed vs. a long history). */
+    @Param({"10", "500"})
+    public int rows;
+
+    private List<StudentAttempt> attempts;
+    private Object[][] tuples;
+
+    @Setup
+    public void setup() {
+        List<Lesson> lessons = BenchmarkFixtures.lessons(20);
+        attempts = new ArrayList<>(rows);
+        tuples = new Object[rows][];
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 9, 0);
+        for (int i = 0; i < rows; i++) {
+            StudentAttempt a = new StudentAttempt();
+            a.setAttemptId((long) i + 1);
+            a.setLesson(lessons.get(i % lessons.size()));
+            a.setScore(i % 11);
+            a.setStatus(i % 3 == 0 ? Status.FAILED : Status.COMPLETED);
+            a.setTimeSpentSeconds(60 + i % 240);
+            a.setAttemptedAt(start.plusMinutes(i));
+            attempts.add(a);
+            Lesson l = a.getLesson();
+            tuples[i] = new Object[]{a.getAttemptId(), l.getLessonID(), l.getTitle(), a.getScore(), a.getStatus(),
+                    a.getTimeSpentSeconds(), a.getAttemptedAt(), l.getLessonType(), l.getLessonOrder(),
+                    l.getMax_score(), l.getUnlockThreshold()};
+        }
+    }
+
+    @Benchmark
+    public List<AttemptHistoryDTO> entityMapping() {
+        return attempts.stream()
+                .map(a -> new AttemptHistoryDTO(
+                        a.getAttemptId(),
+                        a.getLesson().getLessonID(),
+                        a.getLesson().getTitle(),
+                        a.getScore(),
+                        a.getStatus() != null ? a.getStatus().name() : null,
+                        a.getTimeSpentSeconds(),
+                        a.getAttemptedAt(),
+                        a.getLesson().getLessonType(),
+                        a.getLesson().getLessonOrder(),
+                        a.getLesson().getMax_score(),
+                        a.getLesson().getUnlockThreshold()
+                ))
+                .toList();
+    }
+
+    @Benchmark
+    public List<AttemptHistoryDTO> projectionConstructor() {
+        List<AttemptHistoryDTO> out = new ArrayList<>(tuples.length);
+        for (Object[] t : tuples) {
+            out.add(new AttemptHistoryDTO((Long) t[0], (Long) t[1], (String) t[2], (Integer) t[3], (Status) t[4],
+                    (Integer) t[5], (LocalDateTime) t[6], (LessonType) t[7],
+                    (Integer) t[8], (Integer) t[9], (Integer) t[10]));
+        }
+        return out;
+    }
+}
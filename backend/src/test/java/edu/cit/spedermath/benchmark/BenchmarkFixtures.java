@@ -0,0 +1,44 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.model.Lesson;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/** Shared test data and stubs so benchmarks exercise real service code without a database. */
+final class BenchmarkFixtures {
+
+    /** Base64 of 32 fixed bytes; good enough for HS256 and AES-256 in benchmarks. */
+    static final String KEY_BASE64 = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    private BenchmarkFixtures() {}
+
+    /** Lessons shaped like the seeded curriculum: alternating lessons and assessments. */
+    static List<Lesson> lessons(int count) {
+        List<Lesson> lessons = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            LessonType type = i % 2 == 0 ? LessonType.ASSESSMENT : LessonType.LESSON;
+            Lesson l = new Lesson("Lesson " + i, "Counting to " + (i * 10), type, 7, 10, i);
+            l.setLessonID((long) i);
+            lessons.add(l);
+        }
+        return lessons;
+    }
+
+    /**
+     * Repository stub answering the named methods; anything else throws.
+     * Spring Data repositories are plain interfaces, so a JDK proxy is enough.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> repository, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) throw new UnsupportedOperationException(method.getName());
+            return answer.apply(args);
+        });
+    }
+}
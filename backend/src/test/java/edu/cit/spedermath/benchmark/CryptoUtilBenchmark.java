@@ -0,0 +1,132 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.util.CryptoUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM round trip used for student passwords (create/reset encrypt, roster/login decrypt).
+ * The legacy* methods are the previous Cipher.getInstance-per-call implementation, kept for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CryptoUtilBenchmark {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Encrypted passwords of one roster, for the bulk benchmarks; only these are parameterised. */
+    @State(Scope.Benchmark)
+    public static class Roster {
+
+        /** One class vs. a whole school. */
+        @Param({"30", "2000"})
+        public int size;
+
+        List<String> ciphertexts;
+
+        @Setup
+        public void setup() {
+            CryptoUtil cryptoUtil = newCryptoUtil();
+            ciphertexts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) ciphertexts.add(cryptoUtil.encrypt("pw" + i + "xYz9"));
+        }
+    }
+
+    private CryptoUtil cryptoUtil;
+    private SecretKeySpec keySpec;
+    private String ciphertext;
+
+    @Setup
+    public void setup() {
+        cryptoUtil = newCryptoUtil();
+        keySpec = new SecretKeySpec(Base64.getDecoder().decode(BenchmarkFixtures.KEY_BASE64), "AES");
+        ciphertext = cryptoUtil.encrypt("aB3dE6gH");
+        if (!"aB3dE6gH".equals(legacyDecrypt(ciphertext)) || !"aB3dE6gH".equals(cryptoUtil.decrypt(legacyEncrypt("aB3dE6gH")))) {
+            throw new IllegalStateException("Pooled and legacy formats differ");
+        }
+    }
+
+    private static CryptoUtil newCryptoUtil() {
+        CryptoUtil cryptoUtil = new CryptoUtil();
+        ReflectionTestUtils.setField(cryptoUtil, "keyBase64", BenchmarkFixtures.KEY_BASE64);
+        cryptoUtil.init();
+        return cryptoUtil;
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return cryptoUtil.encrypt("aB3dE6gH");
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return cryptoUtil.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() {
+        return legacyEncrypt("aB3dE6gH");
+    }
+
+    @Benchmark
+    public String legacyDecrypt() {
+        return legacyDecrypt(ciphertext);
+    }
+
+    @Benchmark
+    public List<String> decryptAll(Roster roster) {
+        return cryptoUtil.decryptAll(roster.ciphertexts);
+    }
+
+    @Benchmark
+    public List<String> legacyDecryptLoop(Roster roster) {
+        List<String> out = new ArrayList<>(roster.ciphertexts.size());
+        for (String c : roster.ciphertexts) out.add(legacyDecrypt(c));
+        return out;
+    }
+
+    private String legacyEncrypt(String plaintext) {
+        try {
+            byte[] iv = new byte[12];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            byte[] ct = cipher.doFinal(plaintext.getBytes("UTF-8"));
+            ByteBuffer bb = ByteBuffer.allocate(iv.length + ct.length);
+            bb.put(iv);
+            bb.put(ct);
+            return Base64.getEncoder().encodeToString(bb.array());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String legacyDecrypt(String base64IvCipher) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(Base64.getDecoder().decode(base64IvCipher));
+            byte[] iv = new byte[12];
+            bb.get(iv);
+            byte[] ct = new byte[bb.remaining()];
+            bb.get(ct);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            return new String(cipher.doFinal(ct), "UTF-8");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
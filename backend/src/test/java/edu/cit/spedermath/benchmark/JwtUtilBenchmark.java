@@ -0,0 +1,51 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/** Token issue (login) and full verification (every protected request on a token-cache miss). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String teacherToken;
+    private String studentToken;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretBase64", BenchmarkFixtures.KEY_BASE64);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+        teacherToken = jwtUtil.generateTeacherToken(3L, "teacher@example.com");
+        studentToken = jwtUtil.generateStudentToken(42L);
+    }
+
+    @Benchmark
+    public String generateTeacherToken() {
+        return jwtUtil.generateTeacherToken(3L, "teacher@example.com");
+    }
+
+    @Benchmark
+    public String generateStudentToken() {
+        return jwtUtil.generateStudentToken(42L);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(teacherToken);
+    }
+
+    @Benchmark
+    public Object parseStudentPrincipal() {
+        return jwtUtil.parsePrincipal(studentToken);
+    }
+}
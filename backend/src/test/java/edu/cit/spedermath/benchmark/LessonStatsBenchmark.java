@@ -0,0 +1,65 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.dto.LessonStatsDTO;
+import edu.cit.spedermath.dto.LessonStatsTotals;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.repository.LessonRepository;
+import edu.cit.spedermath.repository.StudentProgressRepository;
+import edu.cit.spedermath.service.LessonCatalog;
+import edu.cit.spedermath.service.LessonStatsAggregator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Building the /api/lesson-stats payload: raw DTO construction and the aggregator read path. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LessonStatsBenchmark {
+
+    private List<Lesson> lessons;
+    private LessonStatsAggregator aggregator;
+
+    @Setup
+    public void setup() {
+        lessons = BenchmarkFixtures.lessons(20);
+        List<LessonStatsTotals> totals = new ArrayList<>();
+        for (Lesson l : lessons) {
+            long id = l.getLessonID();
+            totals.add(new LessonStatsTotals(id, 30L, 30L * 7, 30L * 180, 28L, id % 5, 25L, 5L, 18L, 4L, 5L, 3L));
+        }
+        LessonRepository lessonRepo = BenchmarkFixtures.stub(LessonRepository.class, Map.of("findAll", args -> lessons));
+        StudentProgressRepository progressRepo = BenchmarkFixtures.stub(StudentProgressRepository.class,
+                Map.of("getLessonTotalsByTeacherId", args -> totals));
+        aggregator = new LessonStatsAggregator(progressRepo, new LessonCatalog(lessonRepo), Duration.ofDays(1));
+        aggregator.statsFor(3L, null); // seed
+    }
+
+    @Benchmark
+    public List<LessonStatsDTO> constructDtos() {
+        List<LessonStatsDTO> out = new ArrayList<>(lessons.size());
+        for (Lesson l : lessons) {
+            out.add(new LessonStatsDTO(l.getLessonID(), l.getTitle(), 7.0, 180.0, 2L,
+                    25L, 5L, 18L, 4L, 5L, 3L, l.getLessonType(), l.getMax_score()));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public List<LessonStatsDTO> aggregatorAllTypes() {
+        return aggregator.statsFor(3L, null);
+    }
+
+    @Benchmark
+    public List<LessonStatsDTO> aggregatorAssessmentsOnly() {
+        return aggregator.statsFor(3L, LessonType.ASSESSMENT);
+    }
+}
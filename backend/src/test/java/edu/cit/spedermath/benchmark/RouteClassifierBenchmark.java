@@ -0,0 +1,72 @@
+package edu.cit.spedermath.benchmark;
+
+import edu.cit.spedermath.security.RouteClassifier;
+import edu.cit.spedermath.security.RouteClassifier.Access;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precompiled route trie vs. the previous AntPathMatcher whitelist scan + startsWith chain
+ * in JwtAuthenticationFilter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteClassifierBenchmark {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    /** Mix of public and protected paths the frontend actually hits. */
+    private static final String[] PATHS = {
+            "/api/student-progress/my",
+            "/api/student-progress/submit",
+            "/api/attempts/42/recent",
+            "/api/students/all",
+            "/api/students/17/qr-token",
+            "/api/teachers/me",
+            "/api/teachers/3/photo",
+            "/api/lessons",
+            "/api/lesson-stats",
+            "/api/summarize"
+    };
+
+    private RouteClassifier classifier;
+
+    @Setup
+    public void setup() {
+        classifier = new RouteClassifier();
+        for (String path : PATHS) {
+            if (classifier.classify(path) != legacyClassify(path)) {
+                throw new IllegalStateException("Classifier disagrees with legacy scan for " + path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void precompiledTrie(Blackhole bh) {
+        for (String path : PATHS) bh.consume(classifier.classify(path));
+    }
+
+    @Benchmark
+    public void legacyAntScan(Blackhole bh) {
+        for (String path : PATHS) bh.consume(legacyClassify(path));
+    }
+
+    /** The pre-trie filter logic, kept here only as the baseline. */
+    private static Access legacyClassify(String path) {
+        for (String p : RouteClassifier.PUBLIC_PATTERNS) {
+            if (MATCHER.match(p, path)) return Access.PUBLIC;
+        }
+        if (path.startsWith("/api/student-progress")) return Access.STUDENT;
+        if (path.startsWith("/api/students")) return Access.EITHER;
+        if (path.startsWith("/api/teachers")) return Access.TEACHER;
+        if (path.startsWith("/api/attempts")) return Access.EITHER;
+        return Access.NONE;
+    }
+}
@@ -0,0 +1,144 @@
+package edu.cit.spedermath.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for primary and replica; each knows its own name, and the
+ * replica's reported lag is a row the test can change. Only read-only work that opted in with
+ * {@link ReplicaRead} may use the replica.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate readWriteTx;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        new JdbcTemplate(replica).update("INSERT INTO replica_lag VALUES (0)");
+
+        monitor = new ReplicaLagMonitor(replica, LAG_QUERY, Duration.ofSeconds(5), Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, monitor));
+        jdbc = new JdbcTemplate(routing);
+
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(routing);
+        readWriteTx = new TransactionTemplate(tm);
+        readOnlyTx = new TransactionTemplate(tm);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    /** Stands in for a service method annotated with {@link ReplicaRead}. */
+    public static class Reads {
+        @ReplicaRead
+        public <T> T onReplica(Supplier<T> work) {
+            return work.get();
+        }
+    }
+
+    private static <T> T replicaRead(Supplier<T> work) {
+        boolean previous = ReplicaRoutingDataSource.enterReplicaRead();
+        try {
+            return work.get();
+        } finally {
+            ReplicaRoutingDataSource.exitReplicaRead(previous);
+        }
+    }
+
+    @Test
+    void optedInReadOnlyTransactionsGoToTheReplica() {
+        monitor.check();
+        assertEquals("replica", replicaRead(() -> readOnlyTx.execute(s -> whoAmI())));
+    }
+
+    @Test
+    void readOnlyTransactionsWithoutOptInStayOnThePrimary() {
+        monitor.check();
+        assertEquals("primary", readOnlyTx.execute(s -> whoAmI()));
+    }
+
+    @Test
+    void replicaReadAnnotationOptsIn() {
+        monitor.check();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reads());
+        factory.addAspect(new ReplicaReadAspect());
+        Reads reads = factory.getProxy();
+
+        assertEquals("replica", reads.onReplica(() -> readOnlyTx.execute(s -> whoAmI())));
+        assertEquals("primary", readOnlyTx.execute(s -> whoAmI()), "opt-in must not outlive the call");
+    }
+
+    @Test
+    void writesAndNonTransactionalAccessStayOnThePrimary() {
+        monitor.check();
+        assertEquals("primary", replicaRead(() -> readWriteTx.execute(s -> whoAmI())));
+        assertEquals("primary", replicaRead(this::whoAmI));
+    }
+
+    @Test
+    void laggingReplicaIsBypassedUntilItCatchesUp() {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 30");
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals("primary", replicaRead(() -> readOnlyTx.execute(s -> whoAmI())));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 1");
+        monitor.check();
+        assertEquals("replica", replicaRead(() -> readOnlyTx.execute(s -> whoAmI())));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        monitor.check();
+        new JdbcTemplate(replica).execute("DROP TABLE replica_lag"); // probe now fails
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals("primary", replicaRead(() -> readOnlyTx.execute(s -> whoAmI())));
+    }
+
+    @Test
+    void replicaIsNotUsedBeforeTheFirstProbe() {
+        assertEquals("primary", replicaRead(() -> readOnlyTx.execute(s -> whoAmI())));
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.execute("CREATE TABLE whoami (name VARCHAR(16))");
+        t.update("INSERT INTO whoami VALUES (?)", name);
+        return ds;
+    }
+}
@@ -0,0 +1,143 @@
+package edu.cit.spedermath.repository;
+
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.StudentAttempt;
+import edu.cit.spedermath.model.Teacher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recent-attempt queries against a real Postgres: per-student scoping, keyset paging, and
+ * query plans that must stay on idx_attempt_student_time (no seq scan, no sort).
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class StudentAttemptRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int ATTEMPTS_PER_STUDENT = 5000;
+
+    @Autowired
+    private StudentAttemptRepository attemptRepo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long studentA;
+    private Long studentB;
+
+    @BeforeEach
+    void seed() {
+        Teacher teacher = em.persist(new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now()));
+        Lesson lesson = em.persist(new Lesson("Counting", "Count to 10", LessonType.ASSESSMENT, 7, 10, 1));
+        studentA = em.persist(new Student("Ben", "Reyes", "ben", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher)).getStudentID();
+        studentB = em.persist(new Student("Cy", "Santos", "cy", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher)).getStudentID();
+        em.flush();
+
+        // two attempts share each timestamp so the attemptId tie-breaker matters
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 8, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS_PER_STUDENT; i++) {
+            Timestamp at = Timestamp.valueOf(start.plusSeconds(i / 2));
+            rows.add(new Object[]{studentA, lesson.getLessonID(), i % 11, Status.COMPLETED.name(), 60, at});
+            rows.add(new Object[]{studentB, lesson.getLessonID(), i % 11, Status.FAILED.name(), 60, at});
+        }
+        jdbc.batchUpdate("""
+            INSERT INTO student_attempt (student_id, lesson_id, score, status, time_spent_seconds, attempted_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """, rows);
+        jdbc.execute("ANALYZE student_attempt");
+    }
+
+    @Test
+    void recentAttemptsOnlyReturnTheRequestedStudent() {
+        List<StudentAttempt> recent = attemptRepo.findRecentAttempts(studentA, PageRequest.of(0, 25));
+
+        assertEquals(25, recent.size());
+        assertTrue(recent.stream().allMatch(a -> a.getStatus() == Status.COMPLETED));
+        assertNewestFirst(recent);
+    }
+
+    @Test
+    void keysetPagesWalkTheWholeHistoryWithoutGapsOrDuplicates() {
+        List<StudentAttempt> all = new ArrayList<>();
+        List<StudentAttempt> page = attemptRepo.findRecentAttempts(studentA, PageRequest.of(0, 333));
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            StudentAttempt last = page.get(page.size() - 1);
+            page = attemptRepo.findRecentAttemptsBefore(studentA, last.getAttemptedAt(), last.getAttemptId(), PageRequest.of(0, 333));
+        }
+
+        assertEquals(ATTEMPTS_PER_STUDENT, all.size());
+        assertEquals(ATTEMPTS_PER_STUDENT, all.stream().map(StudentAttempt::getAttemptId).distinct().count());
+        assertNewestFirst(all);
+    }
+
+    @Test
+    void recentAttemptsPlanUsesStudentTimeIndex() {
+        assertIndexOnlyPlan(explain("""
+            SELECT * FROM student_attempt
+            WHERE student_id = %d
+            ORDER BY attempted_at DESC, attempt_id DESC
+            LIMIT 20
+        """.formatted(studentA)));
+    }
+
+    @Test
+    void keysetPlanUsesStudentTimeIndex() {
+        assertIndexOnlyPlan(explain("""
+            SELECT * FROM student_attempt
+            WHERE student_id = %d
+            AND (attempted_at, attempt_id) < (TIMESTAMP '2025-01-06 08:20:00', 2500)
+            ORDER BY attempted_at DESC, attempt_id DESC
+            LIMIT 20
+        """.formatted(studentA)));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private static void assertIndexOnlyPlan(String plan) {
+        assertTrue(plan.contains("idx_attempt_student_time"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    private static void assertNewestFirst(List<StudentAttempt> attempts) {
+        for (int i = 1; i < attempts.size(); i++) {
+            StudentAttempt prev = attempts.get(i - 1), cur = attempts.get(i);
+            int byTime = prev.getAttemptedAt().compareTo(cur.getAttemptedAt());
+            assertTrue(byTime > 0 || (byTime == 0 && prev.getAttemptId() > cur.getAttemptId()),
+                    "out of order at " + i);
+        }
+    }
+}
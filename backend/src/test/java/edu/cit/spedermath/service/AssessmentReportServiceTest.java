@@ -0,0 +1,189 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.dto.AssessmentReportDTO;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.ReportScope;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.StudentAttempt;
+import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reports are built from attempt rows, stored, reused until a newer attempt arrives, and
+ * pre-generated for students whose assessment window has closed. The LLM is a local mock server.
+ */
+@DataJpaTest(properties = "app.assessment-report.pregenerate=false")
+@Import({AssessmentReportService.class, LessonCatalog.class, SimpleMeterRegistry.class,
+        AssessmentReportServiceTest.MockLlm.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // reports are stored in their own transactions
+class AssessmentReportServiceTest {
+
+    static final MockWebServer llm = new MockWebServer();
+    static final List<String> prompts = new CopyOnWriteArrayList<>();
+    static volatile Duration llmDelay = Duration.ZERO;
+
+    @TestConfiguration
+    static class MockLlm {
+        @Bean
+        SummarizerService summarizerService(MeterRegistry meterRegistry) {
+            llm.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    try {
+                        prompts.add(new JSONObject(request.getBody().readUtf8())
+                                .getJSONArray("messages").getJSONObject(0).getString("content"));
+                        JSONObject message = new JSONObject().put("content", "<assessment>report " + prompts.size());
+                        return new MockResponse().setHeadersDelay(llmDelay.toMillis(), TimeUnit.MILLISECONDS)
+                                .setHeader("Content-Type", "application/json")
+                                .setBody(new JSONObject().put("choices", new JSONArray()
+                                        .put(new JSONObject().put("message", message))).toString());
+                    } catch (Exception e) {
+                        return new MockResponse().setResponseCode(400);
+                    }
+                }
+            });
+            return new SummarizerService("test-key", llm.url("/").toString(), 2, 2, Duration.ofSeconds(5),
+                    Duration.ofSeconds(5), 100, Duration.ofHours(1), meterRegistry);
+        }
+    }
+
+    @Autowired private AssessmentReportService reports;
+    @Autowired private LessonCatalog lessonCatalog;
+    @Autowired private TeacherRepository teacherRepo;
+    @Autowired private StudentRepository studentRepo;
+    @Autowired private LessonRepository lessonRepo;
+    @Autowired private StudentAttemptRepository attemptRepo;
+    @Autowired private AssessmentReportRepository reportRepo;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private Teacher teacher;
+    private Lesson counting;
+    private Student ben;
+
+    @BeforeEach
+    void seed() {
+        prompts.clear();
+        llmDelay = Duration.ZERO;
+        teacher = teacherRepo.save(new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now()));
+        counting = lessonRepo.save(new Lesson("Counting", "Count to 10", LessonType.ASSESSMENT, 7, 10, 1));
+        lessonRepo.save(new Lesson("Adding", "Add to 10", LessonType.ASSESSMENT, 8, 10, 2));
+        lessonCatalog.rebuild();
+        ben = studentRepo.save(new Student("Ben", "Reyes", "ben", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher));
+    }
+
+    @AfterEach
+    void clean() {
+        reportRepo.deleteAll();
+        attemptRepo.deleteAll();
+        studentRepo.deleteAll();
+        lessonRepo.deleteAll();
+        teacherRepo.deleteAll();
+    }
+
+    private StudentAttempt attempt(Student student, int score, LocalDateTime at) {
+        StudentAttempt a = new StudentAttempt();
+        a.setStudent(student);
+        a.setLesson(counting);
+        a.setScore(score);
+        a.setStatus(Status.COMPLETED);
+        a.setTimeSpentSeconds(40 + score);
+        a.setAttemptedAt(at);
+        return attemptRepo.save(a);
+    }
+
+    @Test
+    void reportIsReusedUntilANewerAttemptArrives() throws Exception {
+        attempt(ben, 5, LocalDateTime.now().minusMinutes(2));
+        StudentAttempt latest = attempt(ben, 8, LocalDateTime.now().minusMinutes(1));
+
+        AssessmentReportDTO first = reports.studentReport(ben.getStudentID()).get(5, TimeUnit.SECONDS);
+        assertEquals("<assessment>report 1", first.summary());
+        assertEquals(latest.getAttemptId(), first.latestAttemptId());
+        assertTrue(prompts.get(0).contains("Assessment 1 \"Counting\", attempts=2, last=8, best=8, avgScore=7, "
+                + "avgTimeSec=47, maxScore=10, unlockThreshold=7, nextUnlockThreshold=8, trend=up"), prompts.get(0));
+        assertTrue(prompts.get(0).contains("(\"Ben Reyes\")"));
+
+        AssessmentReportDTO again = reports.studentReport(ben.getStudentID()).get(5, TimeUnit.SECONDS);
+        assertEquals(first.summary(), again.summary());
+        assertEquals(1, prompts.size(), "unchanged data must not reach the LLM");
+
+        StudentAttempt newer = attempt(ben, 9, LocalDateTime.now());
+        AssessmentReportDTO updated = reports.studentReport(ben.getStudentID()).get(5, TimeUnit.SECONDS);
+        assertEquals("<assessment>report 2", updated.summary());
+        assertEquals(newer.getAttemptId(), updated.latestAttemptId());
+        assertEquals(newer.getAttemptId(),
+                reportRepo.findByScopeAndOwnerId(ReportScope.STUDENT, ben.getStudentID()).orElseThrow().getLatestAttemptId());
+    }
+
+    @Test
+    void cancellingAReportReleasesTheLlmCall() throws Exception {
+        llmDelay = Duration.ofSeconds(5);
+        attempt(ben, 5, LocalDateTime.now());
+        double pending = meterRegistry.get("spedermath.summarizer.pending").gauge().value();
+
+        CompletableFuture<AssessmentReportDTO> report = reports.studentReport(ben.getStudentID());
+        assertEquals(pending + 1, meterRegistry.get("spedermath.summarizer.pending").gauge().value());
+        report.cancel(true);
+
+        for (int i = 0; i < 40 && meterRegistry.get("spedermath.summarizer.pending").gauge().value() > pending; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(pending, meterRegistry.get("spedermath.summarizer.pending").gauge().value(),
+                "the summarizer permit must be released on cancel");
+    }
+
+    @Test
+    void studentWithoutAssessmentsGetsNoLlmCall() throws Exception {
+        AssessmentReportDTO report = reports.studentReport(ben.getStudentID()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(AssessmentReportService.NO_ATTEMPTS, report.summary());
+        assertNull(report.latestAttemptId());
+        assertTrue(prompts.isEmpty());
+    }
+
+    @Test
+    void sweepPregeneratesReportsOfClosedWindowsOnly() {
+        Student cy = studentRepo.save(new Student("Cy", "Santos", "cy", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher));
+        attempt(ben, 6, LocalDateTime.now().minusHours(2));   // window closed
+        attempt(cy, 9, LocalDateTime.now().minusMinutes(1));  // still inside the default 30 min window
+
+        reports.sweep();
+
+        assertTrue(reportRepo.findByScopeAndOwnerId(ReportScope.STUDENT, ben.getStudentID()).isPresent());
+        assertFalse(reportRepo.findByScopeAndOwnerId(ReportScope.STUDENT, cy.getStudentID()).isPresent());
+        String classPrompt = prompts.get(prompts.size() - 1);
+        assertTrue(reportRepo.findByScopeAndOwnerId(ReportScope.CLASS, teacher.getId()).isPresent());
+        assertTrue(classPrompt.contains("Assessment 1 \"Counting\", students=2, attempts=2"), classPrompt);
+        assertFalse(classPrompt.contains("Ben"), "class prompts must not name students");
+    }
+}
@@ -0,0 +1,139 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.repository.LessonRepository;
+import edu.cit.spedermath.repository.StudentAttemptRepository;
+import edu.cit.spedermath.repository.StudentRepository;
+import edu.cit.spedermath.repository.TeacherRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** A row the database rejects is dead-lettered on its own; good rows in the same batch or spill file still land. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the writer commits its own transactions
+class AttemptLogWriterTest {
+
+    private static final long MISSING_STUDENT = 999_999L;
+
+    @TempDir Path dir;
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PlatformTransactionManager txManager;
+    @Autowired private TeacherRepository teacherRepo;
+    @Autowired private StudentRepository studentRepo;
+    @Autowired private LessonRepository lessonRepo;
+    @Autowired private StudentAttemptRepository attemptRepo;
+
+    private Student ben;
+    private Lesson counting;
+    private AttemptLogWriter writer;
+
+    @BeforeEach
+    void seed() {
+        Teacher teacher = teacherRepo.save(new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now()));
+        counting = lessonRepo.save(new Lesson("Counting", "Count to 10", LessonType.ASSESSMENT, 7, 10, 1));
+        ben = studentRepo.save(new Student("Ben", "Reyes", "ben", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher));
+    }
+
+    @AfterEach
+    void clean() {
+        if (writer != null) writer.stop();
+        attemptRepo.deleteAll();
+        studentRepo.deleteAll();
+        lessonRepo.deleteAll();
+        teacherRepo.deleteAll();
+    }
+
+    private AttemptLogWriter writer(boolean writeBehind) {
+        writer = new AttemptLogWriter(jdbc, txManager, new SimpleMeterRegistry(), writeBehind, 100, 50,
+                Duration.ofMillis(50), dir.resolve("spill"), dir.resolve("dead"), Duration.ofMillis(100));
+        return writer;
+    }
+
+    private AttemptLogWriter.Row row(long studentId, int score) {
+        return new AttemptLogWriter.Row(studentId, counting.getLessonID(), score, Status.COMPLETED, 30, LocalDateTime.now());
+    }
+
+    @Test
+    void badRowIsDeadLetteredWithoutTakingItsBatchDown() throws Exception {
+        AttemptLogWriter w = writer(true);
+        w.start();
+        for (int i = 0; i < 7; i++) assertTrue(w.offer(row(ben.getStudentID(), i)));
+        assertTrue(w.offer(row(MISSING_STUDENT, 9)));
+        w.stop();
+
+        assertEquals(7, attemptRepo.count());
+        assertFalse(Files.exists(dir.resolve("spill")));
+        List<String> dead = Files.readAllLines(dir.resolve("dead"), StandardCharsets.UTF_8);
+        assertEquals(1, dead.size());
+        assertTrue(dead.get(0).startsWith(MISSING_STUDENT + "\t"));
+    }
+
+    @Test
+    void spillFileIsReplayedAtStartupWithWriteBehindOff() throws Exception {
+        Files.write(dir.resolve("spill"), List.of(
+                row(ben.getStudentID(), 5).toSpillLine(),
+                row(MISSING_STUDENT, 6).toSpillLine(),
+                "not a row",
+                row(ben.getStudentID(), 7).toSpillLine()), StandardCharsets.UTF_8);
+
+        writer(false).start();
+        for (int i = 0; i < 100 && Files.exists(dir.resolve("spill")); i++) Thread.sleep(50);
+
+        assertFalse(Files.exists(dir.resolve("spill")), "spill file should be replayed and removed");
+        assertEquals(2, attemptRepo.count());
+        assertEquals(2, Files.readAllLines(dir.resolve("dead"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void everyAcceptedOfferIsWrittenWhenStopRacesOffers() throws Exception {
+        AttemptLogWriter w = writer(true);
+        w.start();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch offering = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                offering.countDown();
+                while (w.offer(row(ben.getStudentID(), 5))) accepted.incrementAndGet();
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        offering.await();
+        Thread.sleep(20);
+        w.stop();
+        for (Thread producer : producers) producer.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertTrue(accepted.get() > 0);
+        assertEquals(accepted.get(), attemptRepo.count(), "an accepted row was neither written nor spilled");
+        assertFalse(Files.exists(dir.resolve("spill")));
+    }
+}
@@ -0,0 +1,42 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.util.HashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemMediaStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesByContentHashAndDeduplicates() throws Exception {
+        FileSystemMediaStore store = new FileSystemMediaStore(root);
+        byte[] avatar = {1, 2, 3, 4};
+
+        String first = store.put(avatar);
+        String second = store.put(avatar.clone());
+
+        assertEquals(HashUtil.sha256Hex(avatar), first);
+        assertEquals(first, second);
+        assertTrue(Files.isRegularFile(root.resolve(first.substring(0, 2)).resolve(first)));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count(), "one file, no temp files left behind");
+        }
+        assertArrayEquals(avatar, store.get(first).orElseThrow().getContentAsByteArray());
+    }
+
+    @Test
+    void unknownOrMalformedHashesAreEmpty() throws Exception {
+        FileSystemMediaStore store = new FileSystemMediaStore(root);
+        assertTrue(store.get(HashUtil.sha256Hex(new byte[]{9})).isEmpty());
+        assertTrue(store.get("../../etc/passwd").isEmpty());
+        assertTrue(store.get(null).isEmpty());
+    }
+}
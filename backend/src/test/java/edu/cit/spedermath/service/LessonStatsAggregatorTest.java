@@ -0,0 +1,118 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.dto.LessonStatsTotals;
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.Lesson;
+import edu.cit.spedermath.repository.LessonRepository;
+import edu.cit.spedermath.repository.StudentProgressRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** Deltas reach totals seeded before the write; totals seeded while it was in flight are dropped and reseeded. */
+class LessonStatsAggregatorTest {
+
+    private static final long TEACHER = 1L, LESSON = 10L;
+
+    private final StudentProgressRepository progressRepo = mock(StudentProgressRepository.class);
+    private LessonStatsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        Lesson lesson = new Lesson("Counting", "Count to 10", LessonType.ASSESSMENT, 7, 10, 1);
+        lesson.setLessonID(LESSON);
+        LessonRepository lessonRepo = mock(LessonRepository.class);
+        when(lessonRepo.findAll()).thenReturn(List.of(lesson));
+        aggregator = new LessonStatsAggregator(progressRepo, new LessonCatalog(lessonRepo), Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void seedWith(long rows, long scoreSum) {
+        when(progressRepo.getLessonTotalsByTeacherId(TEACHER)).thenReturn(List.of(
+                new LessonStatsTotals(LESSON, rows, scoreSum, 0L, 0L, 0L, rows, 0L, rows, 0L, 0L, 0L)));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static LessonStatsAggregator.Contribution completed(int score) {
+        return new LessonStatsAggregator.Contribution(LESSON, score, null, 0, true, Status.COMPLETED);
+    }
+
+    @Test
+    void deltaIsAppliedToTotalsSeededBeforeTheWrite() {
+        seedWith(1, 6);
+        assertEquals(6.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+
+        TransactionSynchronizationManager.initSynchronization();
+        aggregator.recordChange(TEACHER, List.of(), List.of(completed(8)));
+        commit();
+
+        assertEquals(7.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+        verify(progressRepo, times(1)).getLessonTotalsByTeacherId(TEACHER);
+    }
+
+    @Test
+    void totalsSeededWhileTheWriteIsUncommittedAreReseeded() {
+        // nothing cached when the writer reports; a dashboard read seeds from pre-commit data
+        TransactionSynchronizationManager.initSynchronization();
+        aggregator.recordChange(TEACHER, List.of(), List.of(completed(8)));
+        seedWith(1, 6);
+        assertEquals(6.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+        commit();
+
+        seedWith(2, 14); // what the table holds after the commit
+        assertEquals(7.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+        verify(progressRepo, times(2)).getLessonTotalsByTeacherId(TEACHER);
+    }
+
+    @Test
+    void seedIsNotPublishedWhenAWriteCommitsDuringItsQuery() {
+        // the seed query reads its snapshot, then a write (recorded and committed) lands before the seed is published
+        when(progressRepo.getLessonTotalsByTeacherId(TEACHER))
+                .thenAnswer(inv -> {
+                    aggregator.recordChange(TEACHER, List.of(), List.of(completed(8))); // no transaction: commits now
+                    return List.of(new LessonStatsTotals(LESSON, 1L, 6L, 0L, 0L, 0L, 1L, 0L, 1L, 0L, 0L, 0L));
+                })
+                .thenReturn(List.of(new LessonStatsTotals(LESSON, 2L, 14L, 0L, 0L, 0L, 2L, 0L, 2L, 0L, 0L, 0L)));
+
+        aggregator.statsFor(TEACHER, null);
+
+        assertEquals(7.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+        verify(progressRepo, times(2)).getLessonTotalsByTeacherId(TEACHER);
+    }
+
+    @Test
+    void seedIsNotPublishedWhenAnEarlierWriteCommitsDuringItsQuery() {
+        // the write is recorded before the seed starts and commits between the seed query and its publish
+        TransactionSynchronizationManager.initSynchronization();
+        aggregator.recordChange(TEACHER, List.of(), List.of(completed(8)));
+        when(progressRepo.getLessonTotalsByTeacherId(TEACHER))
+                .thenAnswer(inv -> {
+                    commit();
+                    return List.of(new LessonStatsTotals(LESSON, 1L, 6L, 0L, 0L, 0L, 1L, 0L, 1L, 0L, 0L, 0L));
+                })
+                .thenReturn(List.of(new LessonStatsTotals(LESSON, 2L, 14L, 0L, 0L, 0L, 2L, 0L, 2L, 0L, 0L, 0L)));
+
+        aggregator.statsFor(TEACHER, null);
+
+        assertEquals(7.0, aggregator.statsFor(TEACHER, null).get(0).getAvgScore());
+        verify(progressRepo, times(2)).getLessonTotalsByTeacherId(TEACHER);
+    }
+}
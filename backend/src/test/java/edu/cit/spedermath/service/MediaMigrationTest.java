@@ -0,0 +1,121 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.repository.StudentMediaRepository;
+import edu.cit.spedermath.repository.StudentRepository;
+import edu.cit.spedermath.repository.TeacherMediaRepository;
+import edu.cit.spedermath.repository.TeacherRepository;
+import edu.cit.spedermath.util.HashUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Legacy picture columns (no longer mapped) are added back by hand on H2, filled, and migrated into the
+ * default (database) MediaStore in batches smaller than the number of rows. Not transactional: the
+ * store commits on its own and H2 commits on DDL, so each test cleans up after itself.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.media.migration.batch-size=2"
+})
+@Import({MediaMigration.class, DatabaseMediaStore.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MediaMigrationTest {
+
+    @Autowired private MediaMigration migration;
+    @Autowired private MediaStore mediaStore;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private StudentRepository studentRepo;
+    @Autowired private TeacherRepository teacherRepo;
+    @Autowired private StudentMediaRepository studentMediaRepo;
+    @Autowired private TeacherMediaRepository teacherMediaRepo;
+
+    private Long teacherId;
+    private final List<Long> studentIds = new ArrayList<>();
+
+    @BeforeEach
+    void seedLegacyColumns() {
+        jdbc.execute("ALTER TABLE student ADD COLUMN IF NOT EXISTS profile_picture VARBINARY(1024)");
+        jdbc.execute("ALTER TABLE teacher ADD COLUMN IF NOT EXISTS photo_blob VARBINARY(1024)");
+
+        Teacher teacher = teacherRepo.save(new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now()));
+        teacherId = teacher.getId();
+        for (int i = 0; i < 5; i++) {
+            studentIds.add(studentRepo.save(new Student("S" + i, "T", "s" + i, "x", LocalDate.of(2017, 1, 1), LocalDate.now(), teacher)).getStudentID());
+        }
+
+        jdbc.update("UPDATE teacher SET photo_blob = ? WHERE teacherid = ?", new byte[]{9, 9}, teacherId);
+        for (int i = 0; i < 4; i++) { // the fifth student has no picture
+            jdbc.update("UPDATE student SET profile_picture = ? WHERE studentid = ?", new byte[]{1, (byte) i}, studentIds.get(i));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : new String[]{"student_media", "teacher_media", "media_blob", "student", "teacher"}) {
+            jdbc.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void movesPicturesInBatchesAndClearsLegacyColumns() {
+        migration.run(null);
+
+        for (int i = 0; i < 4; i++) {
+            Student s = studentRepo.findById(studentIds.get(i)).orElseThrow();
+            assertNotNull(s.getProfileMediaId());
+            String hash = studentMediaRepo.findContentHashByStudentId(s.getStudentID()).orElseThrow();
+            assertEquals(HashUtil.sha256Hex(new byte[]{1, (byte) i}), hash);
+            assertArrayEquals(new byte[]{1, (byte) i}, content(hash));
+            assertEquals(hash, s.getProfilePictureHash());
+            assertTrue(s.getProfilePictureUrl().endsWith("/photo?v=" + hash.substring(0, Student.PHOTO_VERSION_LENGTH)));
+        }
+        assertNull(studentRepo.findById(studentIds.get(4)).orElseThrow().getProfileMediaId());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM student WHERE profile_picture IS NOT NULL", Integer.class));
+
+        Teacher t = teacherRepo.findById(teacherId).orElseThrow();
+        assertNotNull(t.getPhotoMediaId());
+        assertEquals(HashUtil.sha256Hex(new byte[]{9, 9}), t.getPhotoHash());
+        assertArrayEquals(new byte[]{9, 9}, content(t.getPhotoHash()));
+    }
+
+    @Test
+    void identicalPicturesAreStoredOnce() {
+        jdbc.update("UPDATE student SET profile_picture = ? WHERE studentid IN (?, ?)", new byte[]{5}, studentIds.get(0), studentIds.get(1));
+        migration.run(null);
+        assertEquals(studentMediaRepo.findContentHashByStudentId(studentIds.get(0)),
+                studentMediaRepo.findContentHashByStudentId(studentIds.get(1)));
+        assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM media_blob", Integer.class)); // 3 student + 1 teacher
+    }
+
+    private byte[] content(String hash) {
+        try {
+            return mediaStore.get(hash).orElseThrow().getContentAsByteArray();
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void secondRunIsANoOp() {
+        migration.run(null);
+        migration.run(null);
+        assertEquals(4, studentMediaRepo.count());
+        assertEquals(1, teacherMediaRepo.count());
+    }
+}
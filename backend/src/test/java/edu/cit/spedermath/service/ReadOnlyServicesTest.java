@@ -0,0 +1,114 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.enums.LessonType;
+import edu.cit.spedermath.enums.Status;
+import edu.cit.spedermath.model.*;
+import edu.cit.spedermath.util.CryptoUtil;
+import edu.cit.spedermath.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET-side service methods must never write: entities they load are read-only and the
+ * session is not flushed, even when the method itself modifies them (e.g. swapping in decrypted passwords).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "jwt.secret=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=",
+        "jwt.expirationMs=3600000",
+        "app.crypto.key-base64=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentService.class, StudentProgressService.class, StudentAttemptService.class, LessonStatsServiceImpl.class,
+        LessonStatsAggregator.class, LessonCatalog.class, AttemptLogWriter.class, JwtUtil.class, CryptoUtil.class,
+        DatabaseMediaStore.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // let each service method open its own transaction
+@Testcontainers(disabledWithoutDocker = true)
+class ReadOnlyServicesTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired private StudentService studentService;
+    @Autowired private StudentProgressService progressService;
+    @Autowired private StudentAttemptService attemptService;
+    @Autowired private LessonStatsService lessonStatsService;
+    @Autowired private CryptoUtil cryptoUtil;
+    @Autowired private EntityManagerFactory emf;
+    @Autowired private EntityManager em;
+    @Autowired private PlatformTransactionManager txManager;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void readPathsIssueNoUpdates() {
+        String storedPassword = cryptoUtil.encrypt("aB3dE6gH");
+        Object[] ids = new TransactionTemplate(txManager).execute(status -> {
+            Teacher teacher = new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now());
+            em.persist(teacher);
+            Lesson lesson = new Lesson("Counting", "Count to 10", LessonType.ASSESSMENT, 7, 10, 1);
+            em.persist(lesson);
+            Student student = new Student("Ben", "Reyes", "ben", storedPassword, LocalDate.of(2017, 1, 1), LocalDate.now(), teacher);
+            em.persist(student);
+            StudentProgress progress = new StudentProgress();
+            progress.setStudent(student);
+            progress.setLesson(lesson);
+            progress.setScore(8);
+            progress.setStatus(Status.COMPLETED);
+            progress.setUnlocked(true);
+            em.persist(progress);
+            StudentAttempt attempt = new StudentAttempt();
+            attempt.setStudent(student);
+            attempt.setLesson(lesson);
+            attempt.setScore(8);
+            attempt.setStatus(Status.COMPLETED);
+            attempt.setAttemptedAt(LocalDateTime.now());
+            em.persist(attempt);
+            em.flush();
+            return new Object[]{teacher, student.getStudentID(), lesson.getLessonID()};
+        });
+        Teacher teacher = (Teacher) ids[0];
+        Long studentId = (Long) ids[1];
+        Long lessonId = (Long) ids[2];
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        assertEquals("aB3dE6gH", studentService.getStudentsByTeacher(teacher).get(0).getPassword());
+        assertEquals("aB3dE6gH", studentService.getAllStudents().get(0).getPassword());
+        assertTrue(studentService.getStudentById(studentId).isPresent());
+        assertEquals(1, progressService.getProgressByStudent(studentId).size());
+        assertTrue(progressService.getStudentLessonProgress(studentId, lessonId).isPresent());
+        assertEquals(1, attemptService.getRecent(studentId, 10).size());
+        assertEquals(1, attemptService.getHistoryPage(studentId, null, null, 10).items().size());
+        assertTrue(attemptService.getLatestAttemptDTO(studentId, lessonId).isPresent());
+        assertEquals(1, lessonStatsService.getLessonStatsForTeacher(teacher.getId()).size());
+
+        assertEquals(0, stats.getEntityUpdateCount(), "read paths issued UPDATEs");
+        assertEquals(0, stats.getEntityInsertCount() + stats.getEntityDeleteCount(), "read paths wrote rows");
+        assertEquals(storedPassword, jdbc.queryForObject("SELECT password FROM student WHERE studentid = ?", String.class, studentId));
+    }
+}
@@ -0,0 +1,67 @@
+package edu.cit.spedermath.service;
+
+import edu.cit.spedermath.model.Student;
+import edu.cit.spedermath.model.Teacher;
+import edu.cit.spedermath.repository.StudentLoginTokenRepository;
+import edu.cit.spedermath.repository.StudentRepository;
+import edu.cit.spedermath.repository.TeacherRepository;
+import edu.cit.spedermath.service.StudentLoginTokenService.IssuedToken;
+import edu.cit.spedermath.util.QrSheetPdf;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Roster-wide QR issuance writes one token per student in a batch; each token logs in exactly once. */
+@DataJpaTest(properties = "app.publicApiBaseUrl=https://api.example.com")
+@Import(StudentLoginTokenService.class)
+class StudentLoginTokenServiceTest {
+
+    @Autowired private StudentLoginTokenService tokenService;
+    @Autowired private StudentLoginTokenRepository tokenRepo;
+    @Autowired private TeacherRepository teacherRepo;
+    @Autowired private StudentRepository studentRepo;
+
+    @Test
+    void rosterTokensAreIssuedInRosterOrderAndConsumableOnce() {
+        Teacher ana = teacherRepo.save(new Teacher("Ana", "Cruz", "ana", "ana@example.com", "x", LocalDateTime.now()));
+        Teacher bo = teacherRepo.save(new Teacher("Bo", "Lim", "bo", "bo@example.com", "x", LocalDateTime.now()));
+        studentRepo.save(new Student("Cy", "Santos", "cy", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), ana));
+        studentRepo.save(new Student("Ben", "Reyes", "ben", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), ana));
+        studentRepo.save(new Student("Di", "Uy", "di", "x", LocalDate.of(2017, 1, 1), LocalDate.now(), bo));
+
+        List<IssuedToken> issued = tokenService.createTokensForTeacher(ana.getId());
+
+        assertEquals(List.of("Reyes", "Santos"), issued.stream().map(IssuedToken::lname).toList());
+        assertEquals(2, tokenRepo.count());
+        for (IssuedToken t : issued) {
+            Student student = tokenService.validateAndConsume(t.token()).orElseThrow();
+            assertEquals(t.studentId(), student.getStudentID());
+            assertTrue(tokenService.validateAndConsume(t.token()).isEmpty(), "tokens are single-use");
+        }
+        assertEquals("https://api.example.com/public/qr-login?token=a%2Bb", tokenService.qrLoginUrl("a+b"));
+    }
+
+    @Test
+    void sheetHasOnePagePerTwentyStudents() {
+        List<QrSheetPdf.Entry> entries = IntStream.range(0, 45)
+                .mapToObj(i -> new QrSheetPdf.Entry("Student (" + i + ")", "https://api.example.com/public/qr-login?token=" + i))
+                .toList();
+
+        byte[] pdf = QrSheetPdf.render(entries);
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+
+        assertTrue(text.startsWith("%PDF-1.4"));
+        assertTrue(text.contains("/Count 3 "), "45 students -> 3 pages");
+        int startxref = Integer.parseInt(text.substring(text.lastIndexOf("startxref") + 10, text.lastIndexOf("%%EOF")).strip());
+        assertTrue(text.startsWith("xref", startxref), "startxref must point at the xref table");
+    }
+}
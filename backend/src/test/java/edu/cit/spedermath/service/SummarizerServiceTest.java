@@ -0,0 +1,179 @@
+package edu.cit.spedermath.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SummarizerService against a local mock LLM server: response parsing, the content-hash cache,
+ * connection reuse, the bounded queue, coalescing of identical requests and streaming.
+ */
+class SummarizerServiceTest {
+
+    private MockWebServer server;
+    private SummarizerService summarizer;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        summarizer = summarizer(4, 4);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        summarizer.shutdown();
+        server.shutdown();
+    }
+
+    private SummarizerService summarizer(int maxConcurrency, int queueCapacity) {
+        return new SummarizerService("test-key", server.url("/").toString(), maxConcurrency, queueCapacity,
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 100, Duration.ofHours(1), meterRegistry = new SimpleMeterRegistry());
+    }
+
+    private static MockResponse completion(String content) throws Exception {
+        JSONObject body = new JSONObject().put("choices", new org.json.JSONArray()
+                .put(new JSONObject().put("message", new JSONObject().put("role", "assistant").put("content", content))));
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body.toString());
+    }
+
+    @Test
+    void sendsPromptAndParsesTheCompletion() throws Exception {
+        server.enqueue(completion("  Ben counts to 10 reliably.  "));
+
+        String summary = summarizer.summarize(new SummarizerService.Request("Summarize Ben", 300, "gpt-5-nano"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("Ben counts to 10 reliably.", summary);
+        RecordedRequest sent = server.takeRequest();
+        assertEquals("/v1/chat/completions", sent.getPath());
+        assertEquals("Bearer test-key", sent.getHeader("Authorization"));
+        JSONObject payload = new JSONObject(sent.getBody().readUtf8());
+        assertEquals("gpt-5-nano", payload.getString("model"));
+        assertEquals(300, payload.getInt("max_tokens"));
+        assertEquals(SummarizerService.STOP_SEQUENCE, payload.getJSONArray("stop").getString(0));
+    }
+
+    @Test
+    void identicalPromptIsServedFromCacheAndConnectionsAreReused() throws Exception {
+        server.enqueue(completion("first"));
+        server.enqueue(completion("second"));
+        SummarizerService.Request a = new SummarizerService.Request("prompt A", 300, "gpt-5-nano");
+        SummarizerService.Request b = new SummarizerService.Request("prompt B", 300, "gpt-5-nano");
+
+        assertEquals("first", summarizer.summarize(a).get(5, TimeUnit.SECONDS));
+        assertEquals("first", summarizer.summarize(a).get(5, TimeUnit.SECONDS));
+        assertEquals("second", summarizer.summarize(b).get(5, TimeUnit.SECONDS));
+
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertEquals(1, server.takeRequest().getSequenceNumber(), "second call should reuse the kept-alive connection");
+    }
+
+    @Test
+    void upstreamErrorsAreReportedAndNotCached() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+        server.enqueue(completion("ok"));
+        SummarizerService.Request request = new SummarizerService.Request("prompt", 300, "gpt-5-nano");
+
+        assertTrue(summarizer.summarize(request).get(5, TimeUnit.SECONDS).startsWith("OpenAI API error: 500"));
+        assertEquals("ok", summarizer.summarize(request).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsWhenConcurrencyAndQueueAreFull() throws Exception {
+        summarizer.shutdown();
+        summarizer = summarizer(1, 1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    String prompt = new JSONObject(request.getBody().readUtf8())
+                            .getJSONArray("messages").getJSONObject(0).getString("content");
+                    MockResponse response = completion("summary " + prompt);
+                    return prompt.equals("1") ? response.setHeadersDelay(2, TimeUnit.SECONDS) : response;
+                } catch (Exception e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+            }
+        });
+
+        CompletableFuture<String> running = summarizer.summarize(new SummarizerService.Request("1", 300, "m"));
+        CompletableFuture<String> queued = summarizer.summarize(new SummarizerService.Request("2", 300, "m"));
+        assertThrows(RejectedExecutionException.class,
+                () -> summarizer.summarize(new SummarizerService.Request("3", 300, "m")));
+
+        running.cancel(true); // frees a slot and cancels the upstream call
+        assertEquals("summary 2", queued.get(5, TimeUnit.SECONDS));
+        assertEquals("summary 3", summarizer.summarize(new SummarizerService.Request("3", 300, "m")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void streamsDeltasAndStopsAtASplitStopSequence() throws Exception {
+        StringBuilder sse = new StringBuilder();
+        for (String delta : new String[]{"Ben ", "counts <b>well</b>.", "</asse", "ssment> ignored", " tail"}) {
+            JSONObject chunk = new JSONObject().put("choices", new org.json.JSONArray()
+                    .put(new JSONObject().put("delta", new JSONObject().put("content", delta))));
+            sse.append("data: ").append(chunk).append("\n\n");
+        }
+        sse.append("data: [DONE]\n\n");
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody(sse.toString()));
+
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> done = new CompletableFuture<>();
+        summarizer.stream(new SummarizerService.Request("prompt", 300, "gpt-5-nano"), new SummarizerService.StreamListener() {
+            @Override
+            public void onChunk(String text) {
+                chunks.add(text);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(String.join("", chunks));
+            }
+
+            @Override
+            public void onError(String message) {
+                done.completeExceptionally(new AssertionError(message));
+            }
+        });
+
+        assertEquals("Ben counts <b>well</b>.", done.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Ben ", "counts <b>well</b>."), chunks, "deltas should be forwarded as they arrive");
+        assertTrue(new JSONObject(server.takeRequest().getBody().readUtf8()).getBoolean("stream"));
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() throws Exception {
+        server.enqueue(completion("shared").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(completion("other"));
+
+        CompletableFuture<String> first = summarizer.summarize(new SummarizerService.Request("same prompt", 300, "m"));
+        CompletableFuture<String> second = summarizer.summarize(new SummarizerService.Request("same prompt\r\n", 300, "m"));
+        CompletableFuture<String> leaving = summarizer.summarize(new SummarizerService.Request("  same prompt", 300, "m"));
+        leaving.cancel(true); // one caller leaving must not cancel the call the others wait for
+
+        assertEquals("shared", first.get(5, TimeUnit.SECONDS));
+        assertEquals("shared", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, meterRegistry.counter("spedermath.summarizer.coalesced").count());
+        assertEquals(2.0 / 3, meterRegistry.get("spedermath.summarizer.coalesce.rate").gauge().value(), 1e-9);
+    }
+}
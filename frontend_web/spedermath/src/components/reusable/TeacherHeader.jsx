@@ -28,9 +28,9 @@ function TeacherHeader() {
         const data = res.data || {};
         setTeacherName(data.name || "");
 
-        // data.photoUrl is relative from backend; make it absolute + cache-buster
+        // data.photoUrl is relative from backend and versioned (?v=<hash>), so the browser can cache it
         if (data.photoUrl) {
-          setPhotoUrl(`${API_BASE}${data.photoUrl}?t=${Date.now()}`);
+          setPhotoUrl(`${API_BASE}${data.photoUrl}`);
         } else {
           setPhotoUrl(FALLBACK);
         }
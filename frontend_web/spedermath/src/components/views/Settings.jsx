@@ -86,9 +86,9 @@ function Settings() {
         });
 
         if (data.photoUrl) {
-          const abs = `${API_BASE}${data.photoUrl}`;
+          const abs = `${API_BASE}${data.photoUrl}`; // versioned (?v=<hash>), no cache-buster needed
           setPhotoUrl(abs);
-          setPhotoPreview(`${abs}?t=${Date.now()}`);
+          setPhotoPreview(abs);
         } else {
           setPhotoUrl("");
           setPhotoPreview(FALLBACK);